@@ -0,0 +1,253 @@
+import java.util.Random;
+
+/**
+ * Represents the set of letters a word search may be built from. Each letter is
+ * mapped to a dense code in the range [0, size), allowing grids and automata to
+ * be stored as compact byte arrays with small transition tables regardless of
+ * the script in use. Each letter also carries a weight, used to determine how
+ * often it is chosen when filling empty cells with random letters.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public class Alphabet {
+	
+	/**
+	 * The largest number of letters an Alphabet may hold, such that every code fits
+	 * in a single unsigned byte.
+	 */
+	public static final int MAX_SIZE = 255;
+	
+	public static final Alphabet LATIN = new Alphabet("latin", "ABCDEFGHIJKLMNOPQRSTUVWXYZ");
+	public static final Alphabet ENGLISH = new Alphabet(
+		"english",
+		"ABCDEFGHIJKLMNOPQRSTUVWXYZ",
+		// Approximate letter frequencies in English text, per thousand letters
+		new int[] {
+			82, 15, 28, 43, 127, 22, 20, 61, 70, 2, 8, 40, 24,
+			67, 75, 19, 1, 60, 63, 91, 28, 10, 24, 2, 20, 1
+		}
+	);
+	public static final Alphabet LATIN_EXTENDED = new Alphabet(
+		"latin-extended",
+		"ABCDEFGHIJKLMNOPQRSTUVWXYZ"
+			+ "\u00C0\u00C1\u00C2\u00C3\u00C4\u00C5\u00C6\u00C7\u00C8\u00C9\u00CA\u00CB\u00CC\u00CD\u00CE\u00CF"
+			+ "\u00D0\u00D1\u00D2\u00D3\u00D4\u00D5\u00D6\u00D8\u00D9\u00DA\u00DB\u00DC\u00DD\u00DE"
+	);
+	public static final Alphabet GREEK = new Alphabet(
+		"greek",
+		"\u0391\u0392\u0393\u0394\u0395\u0396\u0397\u0398\u0399\u039A\u039B\u039C"
+			+ "\u039D\u039E\u039F\u03A0\u03A1\u03A3\u03A4\u03A5\u03A6\u03A7\u03A8\u03A9"
+	);
+	public static final Alphabet CYRILLIC = new Alphabet(
+		"cyrillic",
+		"\u0410\u0411\u0412\u0413\u0414\u0415\u0401\u0416\u0417\u0418\u0419\u041A\u041B"
+			+ "\u041C\u041D\u041E\u041F\u0420\u0421\u0422\u0423\u0424\u0425\u0426\u0427"
+			+ "\u0428\u0429\u042A\u042B\u042C\u042D\u042E\u042F"
+	);
+	
+	private static final Alphabet[] PREDEFINED = { LATIN, ENGLISH, LATIN_EXTENDED, GREEK, CYRILLIC };
+	
+	private final String name;
+	private final char[] letters;
+	private final int[] cumulativeWeights;
+	
+	// Lookup table from letter to code, indexed by the letter's offset from the lowest
+	// letter in the Alphabet. Entries hold the code plus one, so that zero means "absent".
+	private final char lowest;
+	private final byte[] codes;
+	
+	public Alphabet(String name, String letters) {
+		this(name, letters, null);
+	}
+	
+	public Alphabet(String name, String letters, int[] weights) {
+		if (letters.isEmpty() || letters.length() > MAX_SIZE)
+			throw new IllegalArgumentException(
+				String.format("An alphabet must hold between 1 and %d letters.", MAX_SIZE)
+			);
+		if (weights != null && weights.length != letters.length())
+			throw new IllegalArgumentException("An alphabet must have exactly one weight per letter.");
+		
+		this.name = name;
+		this.letters = letters.toCharArray();
+		
+		char low = Character.MAX_VALUE;
+		char high = Character.MIN_VALUE;
+		for (char c : this.letters) {
+			low = (char)Math.min(low, c);
+			high = (char)Math.max(high, c);
+		}
+		lowest = low;
+		codes = new byte[high - low + 1];
+		for (int i = 0; i < this.letters.length; ++i) {
+			if (codes[this.letters[i] - lowest] != 0)
+				throw new IllegalArgumentException("Duplicate letter in alphabet: " + this.letters[i]);
+			codes[this.letters[i] - lowest] = (byte)(i + 1);
+		}
+		
+		// Store weights cumulatively, so that a random letter can be drawn with a single
+		// binary search rather than a walk over every letter
+		cumulativeWeights = new int[this.letters.length];
+		int total = 0;
+		for (int i = 0; i < this.letters.length; ++i) {
+			int weight = weights == null ? 1 : weights[i];
+			if (weight < 0)
+				throw new IllegalArgumentException("Letter weights must not be negative.");
+			total += weight;
+			cumulativeWeights[i] = total;
+		}
+		if (total == 0)
+			throw new IllegalArgumentException("At least one letter must have a positive weight.");
+	}
+	
+	/**
+	 * Look up one of the predefined alphabets by its name.
+	 * 
+	 * @param name  The name of the alphabet
+	 * 
+	 * @return  The matching Alphabet, or null if there is none
+	 */
+	public static Alphabet forName(String name) {
+		for (Alphabet alphabet : PREDEFINED) {
+			if (alphabet.getName().equalsIgnoreCase(name))
+				return alphabet;
+		}
+		return null;
+	}
+	
+	/**
+	 * Fetch the name of the Alphabet.
+	 * 
+	 * @return  The name of the Alphabet
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Fetch the number of letters in the Alphabet.
+	 * 
+	 * @return  The number of letters in the Alphabet
+	 */
+	public int size() {
+		return letters.length;
+	}
+	
+	/**
+	 * Determine if a given character is a letter of the Alphabet.
+	 * 
+	 * @param c  The character to check
+	 * 
+	 * @return  Whether the character is in the Alphabet
+	 */
+	public boolean contains(char c) {
+		return getCode(c) >= 0;
+	}
+	
+	/**
+	 * Fetch the dense code for a given letter.
+	 * 
+	 * @param c  The letter to fetch the code for
+	 * 
+	 * @return  The code for the letter, or -1 if it is not in the Alphabet
+	 */
+	public int getCode(char c) {
+		int offset = c - lowest;
+		if (offset < 0 || offset >= codes.length)
+			return -1;
+		return (codes[offset] & 0xFF) - 1;
+	}
+	
+	/**
+	 * Fetch the letter for a given dense code.
+	 * 
+	 * @param code  The code to fetch the letter for
+	 * 
+	 * @return  The letter for the code
+	 */
+	public char getLetter(int code) {
+		return letters[code];
+	}
+	
+	/**
+	 * Determine if a given string is a non-empty word made up entirely of letters of
+	 * the Alphabet.
+	 * 
+	 * @param word  The string to check
+	 * 
+	 * @return  Whether the string is a valid word in the Alphabet
+	 */
+	public boolean isWord(String word) {
+		int length = word.length();
+		for (int i = 0; i < length; ++i) {
+			if (!contains(word.charAt(i)))
+				return false;
+		}
+		return length > 0;
+	}
+	
+	/**
+	 * Encode a word as an array of dense codes. Codes are stored as unsigned bytes,
+	 * and so should be read back with {@code code & 0xFF}.
+	 * 
+	 * @param word  The word to encode
+	 * 
+	 * @return  The encoded word
+	 */
+	public byte[] encode(String word) {
+		byte[] encoded = new byte[word.length()];
+		for (int i = 0; i < encoded.length; ++i) {
+			int code = getCode(word.charAt(i));
+			if (code < 0)
+				throw new IllegalArgumentException(
+					String.format("'%c' is not a letter of the %s alphabet.", word.charAt(i), name)
+				);
+			encoded[i] = (byte)code;
+		}
+		return encoded;
+	}
+	
+	/**
+	 * Decode an array of dense codes back into a word.
+	 * 
+	 * @param encoded  The encoded word
+	 * 
+	 * @return  The decoded word
+	 */
+	public String decode(byte[] encoded) {
+		char[] word = new char[encoded.length];
+		for (int i = 0; i < encoded.length; ++i)
+			word[i] = letters[encoded[i] & 0xFF];
+		return new String(word);
+	}
+	
+	/**
+	 * Choose a random letter from the Alphabet, with each letter chosen in proportion
+	 * to its weight.
+	 * 
+	 * @param random  The source of randomness to use
+	 * 
+	 * @return  The chosen letter
+	 */
+	public char randomLetter(Random random) {
+		int target = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+		int low = 0;
+		int high = cumulativeWeights.length - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (cumulativeWeights[mid] <= target) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return letters[low];
+	}
+	
+	/**
+	 * Returns a string representation of the Alphabet.
+	 */
+	public String toString() {
+		return name;
+	}
+}
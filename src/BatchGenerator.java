@@ -0,0 +1,437 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates large batches of word searches across several processes, coordinated
+ * entirely through a shared work directory.
+ * 
+ * A batch is given as a file holding one word list per line, each line becoming
+ * one puzzle. The coordinator splits the batch into shards of a fixed number of
+ * puzzles, each written to the work directory's "pending" folder along with a
+ * random seed. Any number of workers, in separate JVMs or on separate hosts sharing
+ * the filesystem, then claim shards by atomically renaming them into the "claimed"
+ * folder, generate their puzzles, and atomically publish the output to the "done"
+ * folder. Once every shard is done, the coordinator collects the output into a
+ * single file, in the same order as the batch.
+ * 
+ * Workers refresh the modification time of their claim after each puzzle. A claim
+ * left untouched for longer than the lease is assumed to belong to a worker that
+ * has crashed, and is returned to "pending" for another worker to pick up. Since
+ * each shard is generated from its own seed, a shard generated twice produces the
+ * same output both times.
+ * 
+ * Usage:
+ * <pre>
+ * java BatchGenerator split &lt;batch-file&gt; &lt;work-dir&gt; &lt;puzzles-per-shard&gt; [alphabet]
+ * java BatchGenerator work &lt;work-dir&gt; [lease-seconds]
+ * java BatchGenerator collect &lt;work-dir&gt; &lt;output-file&gt;
+ * </pre>
+ * 
+ * The output holds each puzzle in the format read by SolvePipeline, so a batch can
+ * be validated by feeding it straight back into the solver.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public class BatchGenerator {
+
+	private static final String PENDING = "pending";
+	private static final String CLAIMED = "claimed";
+	private static final String DONE = "done";
+	
+	// Separates a shard's name from the ID of the worker that claimed it
+	private static final String CLAIM_SEPARATOR = "@";
+	private static final long DEFAULT_LEASE_SECONDS = 60;
+	
+	private final Path workDir;
+	
+	public BatchGenerator(Path workDir) {
+		this.workDir = workDir;
+	}
+	
+	/**
+	 * Program entry point.
+	 * 
+	 * @param args  Command-line arguments
+	 */
+	public static void main(String[] args) {
+		try {
+			switch (args.length > 0 ? args[0] : "") {
+				case "split" -> {
+					Alphabet alphabet = args.length > 4 ? Alphabet.forName(args[4]) : Alphabet.LATIN;
+					if (alphabet == null)
+						throw new IllegalArgumentException("Unknown alphabet: " + args[4]);
+					new BatchGenerator(Paths.get(args[2])).split(
+						Paths.get(args[1]), Integer.parseInt(args[3]), alphabet, new Random()
+					);
+				}
+				case "work" -> {
+					long lease = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_LEASE_SECONDS;
+					int shards = new BatchGenerator(Paths.get(args[1])).work(lease * 1000);
+					System.out.println(String.format("Generated %d shard(s).", shards));
+				}
+				case "collect" -> {
+					int puzzles = new BatchGenerator(Paths.get(args[1])).collect(Paths.get(args[2]));
+					System.out.println(String.format("Collected %d puzzle(s).", puzzles));
+				}
+				default -> {
+					System.out.println("Usage: BatchGenerator split <batch-file> <work-dir> <puzzles-per-shard> [alphabet]");
+					System.out.println("       BatchGenerator work <work-dir> [lease-seconds]");
+					System.out.println("       BatchGenerator collect <work-dir> <output-file>");
+					System.exit(2);
+				}
+			}
+		} catch (IOException | IllegalArgumentException | IllegalStateException | IndexOutOfBoundsException e) {
+			System.out.println("ERROR: " + e.getMessage());
+			System.exit(1);
+		} catch (InterruptedException e) {
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Splits a batch of word lists into shards in the work directory, ready to be claimed
+	 * by workers.
+	 * 
+	 * @param batchFile        The file holding one word list per line
+	 * @param puzzlesPerShard  The number of puzzles in each shard
+	 * @param alphabet         The alphabet to generate puzzles with
+	 * @param random           The source of each shard's seed
+	 * 
+	 * @return  The number of shards created
+	 * 
+	 * @throws IOException  If the batch cannot be read or the shards cannot be written
+	 */
+	public int split(Path batchFile, int puzzlesPerShard, Alphabet alphabet, Random random) throws IOException {
+		if (puzzlesPerShard < 1)
+			throw new IllegalArgumentException("Each shard must hold at least one puzzle.");
+		for (String folder : new String[] { PENDING, CLAIMED, DONE }) {
+			Path path = workDir.resolve(folder);
+			Files.createDirectories(path);
+			if (!isEmpty(path))
+				throw new IllegalStateException("The work directory already holds a batch: " + workDir);
+		}
+		
+		int shardCount = 0;
+		ArrayList<String> wordLists = new ArrayList<String>();
+		try (BufferedReader reader = Files.newBufferedReader(batchFile, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String wordList = line.strip().toUpperCase();
+				if (wordList.isEmpty()) continue;
+				
+				// Store the words separated by single spaces, so that shards can be split the same
+				// way whatever whitespace the batch used
+				wordList = String.join(" ", wordList.split("\\s+"));
+				for (String word : wordList.split(" ")) {
+					if (!alphabet.isWord(word))
+						throw new IllegalArgumentException(
+							String.format("\"%s\" contains letters outside of the %s alphabet.", word, alphabet)
+						);
+				}
+				
+				wordLists.add(wordList);
+				if (wordLists.size() == puzzlesPerShard) {
+					writeShard(shardCount++, random.nextLong(), alphabet, wordLists);
+					wordLists.clear();
+				}
+			}
+		}
+		if (!wordLists.isEmpty())
+			writeShard(shardCount++, random.nextLong(), alphabet, wordLists);
+		
+		return shardCount;
+	}
+	
+	/**
+	 * Claims and generates shards until none are left pending or claimed by another live
+	 * worker.
+	 * 
+	 * @param leaseMillis  How long a claim may go untouched before it is considered abandoned
+	 * 
+	 * @return  The number of shards this worker generated
+	 * 
+	 * @throws IOException           If the work directory cannot be read or written
+	 * @throws InterruptedException  If interrupted while waiting on other workers
+	 */
+	public int work(long leaseMillis) throws IOException, InterruptedException {
+		String workerId = ManagementFactory.getRuntimeMXBean().getName().replace(CLAIM_SEPARATOR, "-");
+		int generated = 0;
+		
+		while (true) {
+			reclaimAbandoned(leaseMillis);
+			
+			Path claim = claimNext(workerId);
+			if (claim != null) {
+				if (generateShard(claim))
+					++generated;
+			} else if (isEmpty(workDir.resolve(CLAIMED))) {
+				return generated;
+			} else {
+				// Other workers hold the remaining shards; wait until they either finish or
+				// their leases run out
+				Thread.sleep(Math.max(100, Math.min(leaseMillis / 4, 1000)));
+			}
+		}
+	}
+	
+	/**
+	 * Collects the output of every shard into a single file, in batch order.
+	 * 
+	 * @param outputFile  The file to write the output to
+	 * 
+	 * @return  The number of puzzles collected
+	 * 
+	 * @throws IOException  If the output cannot be read or written
+	 */
+	public int collect(Path outputFile) throws IOException {
+		if (!isEmpty(workDir.resolve(PENDING)) || !isEmpty(workDir.resolve(CLAIMED)))
+			throw new IllegalStateException("The batch is not finished; some shards are still pending or claimed.");
+		
+		int puzzles = 0;
+		try (BufferedWriter writer = Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8)) {
+			for (Path shard : listSorted(workDir.resolve(DONE))) {
+				for (String line : Files.readAllLines(shard, StandardCharsets.UTF_8)) {
+					if (line.startsWith(":")) ++puzzles;
+					writer.write(line);
+					writer.newLine();
+				}
+			}
+		}
+		return puzzles;
+	}
+	
+	/**
+	 * Atomically claims the first pending shard.
+	 * 
+	 * @param workerId  The ID of the claiming worker
+	 * 
+	 * @return  The path of the claimed shard, or null if there was none left to claim
+	 * 
+	 * @throws IOException  If the work directory cannot be read
+	 */
+	private Path claimNext(String workerId) throws IOException {
+		for (Path shard : listSorted(workDir.resolve(PENDING))) {
+			Path claim = workDir.resolve(CLAIMED).resolve(shard.getFileName() + CLAIM_SEPARATOR + workerId);
+			try {
+				Files.move(shard, claim, StandardCopyOption.ATOMIC_MOVE);
+				Files.setLastModifiedTime(claim, FileTime.fromMillis(System.currentTimeMillis()));
+				return claim;
+			} catch (NoSuchFileException | FileAlreadyExistsException e) {
+				// Another worker claimed this shard first; try the next one
+				continue;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Generates every puzzle in a claimed shard and atomically publishes the output. If
+	 * generation fails, the shard is returned to "pending" before the error is rethrown;
+	 * if the claim is lost to another worker part way through, the shard is abandoned.
+	 * 
+	 * @param claim  The path of the claimed shard
+	 * 
+	 * @return  Whether the output was published, rather than abandoned with the lost claim
+	 * 
+	 * @throws IOException  If the shard cannot be read or its output written
+	 */
+	private boolean generateShard(Path claim) throws IOException {
+		String claimName = claim.getFileName().toString();
+		String shardName = claimName.substring(0, claimName.lastIndexOf(CLAIM_SEPARATOR));
+		
+		try {
+			List<String> lines = Files.readAllLines(claim, StandardCharsets.UTF_8);
+			Random random = new Random(Long.parseLong(readHeader(lines, 0, "seed")));
+			Alphabet alphabet = Alphabet.forName(readHeader(lines, 1, "alphabet"));
+			if (alphabet == null)
+				throw new IOException("Unknown alphabet in shard " + shardName);
+			
+			Path output = workDir.resolve(DONE).resolve(shardName + ".tmp-" + claimName);
+			boolean lost = false;
+			try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+				for (String wordList : lines.subList(2, lines.size())) {
+					String[] words = wordList.split(" ");
+					int size = Arrays.stream(words).mapToInt(String::length).max().getAsInt()
+							+ WordSearchEngine.DEFAULT_PADDING;
+					
+					Board board = new Board(size, WordSearchEngine.DEFAULT_TIMEOUT, alphabet, random);
+					board.fillWords(words);
+					board.fillRemainder();
+					for (String word : board.getFailedWords()) {
+						System.out.println(
+							String.format("Failed to add %s to a puzzle in shard %s.", word, shardName)
+						);
+					}
+					for (String row : board.getGrid().toRows()) {
+						writer.write(row);
+						writer.newLine();
+					}
+					writer.write(": " + wordList);
+					writer.newLine();
+					writer.newLine();
+					
+					// Renew the lease so that long shards are not mistaken for abandoned ones. If the
+					// claim has gone, our lease already ran out and another worker has the shard.
+					try {
+						Files.setLastModifiedTime(claim, FileTime.fromMillis(System.currentTimeMillis()));
+					} catch (NoSuchFileException e) {
+						System.out.println("Lost lease on shard: " + shardName);
+						lost = true;
+						break;
+					}
+				}
+			}
+			if (lost) {
+				Files.deleteIfExists(output);
+				return false;
+			}
+			
+			// A worker whose lease expired may still finish after the shard was reclaimed; since
+			// both produce identical output, whichever publishes last simply replaces the other
+			Files.move(
+				output,
+				workDir.resolve(DONE).resolve(shardName),
+				StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING
+			);
+			Files.deleteIfExists(claim);
+			return true;
+		} catch (IOException | RuntimeException e) {
+			release(claim, shardName);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Returns any claimed shards whose lease has run out to "pending".
+	 * 
+	 * @param leaseMillis  How long a claim may go untouched before it is considered abandoned
+	 * 
+	 * @throws IOException  If the work directory cannot be read
+	 */
+	private void reclaimAbandoned(long leaseMillis) throws IOException {
+		long now = System.currentTimeMillis();
+		for (Path claim : listSorted(workDir.resolve(CLAIMED))) {
+			String claimName = claim.getFileName().toString();
+			try {
+				if (now - Files.getLastModifiedTime(claim).toMillis() > leaseMillis
+						&& release(claim, claimName.substring(0, claimName.lastIndexOf(CLAIM_SEPARATOR))))
+					System.out.println("Reclaimed abandoned shard: " + claimName);
+			} catch (NoSuchFileException e) {
+				// The shard was finished or reclaimed while we were looking at it
+				continue;
+			}
+		}
+	}
+	
+	/**
+	 * Atomically returns a claimed shard to "pending", unless it has already been moved.
+	 * 
+	 * @param claim      The path of the claimed shard
+	 * @param shardName  The original name of the shard
+	 * 
+	 * @return  Whether the shard was moved
+	 * 
+	 * @throws IOException  If the shard cannot be moved
+	 */
+	private boolean release(Path claim, String shardName) throws IOException {
+		try {
+			Files.move(claim, workDir.resolve(PENDING).resolve(shardName), StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (NoSuchFileException | FileAlreadyExistsException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Writes a single shard to "pending". The shard is written under a temporary name
+	 * first, so that workers never see it half-written.
+	 * 
+	 * @param index      The index of the shard in the batch
+	 * @param seed       The seed to generate the shard's puzzles from
+	 * @param alphabet   The alphabet to generate the shard's puzzles with
+	 * @param wordLists  The word list of each puzzle in the shard
+	 * 
+	 * @throws IOException  If the shard cannot be written
+	 */
+	private void writeShard(int index, long seed, Alphabet alphabet, List<String> wordLists) throws IOException {
+		ArrayList<String> lines = new ArrayList<String>();
+		lines.add("seed " + seed);
+		lines.add("alphabet " + alphabet.getName());
+		lines.addAll(wordLists);
+		
+		String name = String.format("shard-%08d", index);
+		Path temporary = workDir.resolve(name + ".tmp");
+		Files.write(temporary, lines, StandardCharsets.UTF_8);
+		Files.move(temporary, workDir.resolve(PENDING).resolve(name), StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/**
+	 * Reads a single "key value" header line from a shard.
+	 * 
+	 * @param lines  The lines of the shard
+	 * @param index  The index of the header line
+	 * @param key    The expected key
+	 * 
+	 * @return  The value of the header
+	 * 
+	 * @throws IOException  If the header is missing or malformed
+	 */
+	private String readHeader(List<String> lines, int index, String key) throws IOException {
+		if (lines.size() <= index || !lines.get(index).startsWith(key + " "))
+			throw new IOException(String.format("Shard is missing its \"%s\" header.", key));
+		return lines.get(index).substring(key.length() + 1);
+	}
+	
+	/**
+	 * Lists the files in a folder of the work directory in name order, skipping any
+	 * temporary files.
+	 * 
+	 * @param folder  The folder to list
+	 * 
+	 * @return  The files in the folder
+	 * 
+	 * @throws IOException  If the folder cannot be read
+	 */
+	private List<Path> listSorted(Path folder) throws IOException {
+		ArrayList<Path> paths = new ArrayList<Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+			for (Path path : stream) {
+				if (!path.getFileName().toString().contains(".tmp"))
+					paths.add(path);
+			}
+		}
+		Collections.sort(paths);
+		return paths;
+	}
+	
+	/**
+	 * Determines whether a folder of the work directory holds no files other than
+	 * temporary ones.
+	 * 
+	 * @param folder  The folder to check
+	 * 
+	 * @return  Whether the folder is empty
+	 * 
+	 * @throws IOException  If the folder cannot be read
+	 */
+	private boolean isEmpty(Path folder) throws IOException {
+		return listSorted(folder).isEmpty();
+	}
+}
@@ -7,22 +7,47 @@ import java.util.Random;
  * remaining empty spaces with random letters. Everything necessary to create a
  * basic word search.
  * 
+ * The shape of the board, whether it wraps around at its edges, and which
+ * directions words may face are all given by the board's Topology.
+ * 
  * @author Murdo B. Maclachlan
  */
 public class Board extends CoordinateSystem {
 	
-	int failedWordCount;
-	int size;
+	// The number of placement attempts between checks of the deadline and cancellation token
+	private static final int STOP_CHECK_INTERVAL = 16;
+	
 	int timeout;
 	
+	Alphabet alphabet;
+	ArrayList<String> failedWords;
+	ArrayList<String> placedWords;
+	ArrayList<String> unattemptedWords;
 	Grid grid;
-	Random random = new Random();
+	Random random;
+	Topology topology;
 	
 	public Board(int size, int timeout) {
-		this.size = size;
+		this(size, timeout, Alphabet.LATIN);
+	}
+	
+	public Board(int size, int timeout, Alphabet alphabet) {
+		this(size, timeout, alphabet, new Random());
+	}
+	
+	public Board(int size, int timeout, Alphabet alphabet, Random random) {
+		this(Topology.bounded(size, size), timeout, alphabet, random);
+	}
+	
+	public Board(Topology topology, int timeout, Alphabet alphabet, Random random) {
+		this.topology = topology;
 		this.timeout = timeout;
+		this.alphabet = alphabet;
+		this.random = random;
 		
-		failedWordCount = 0;
+		failedWords = new ArrayList<String>();
+		placedWords = new ArrayList<String>();
+		unattemptedWords = new ArrayList<String>();
 		this.generateEmptyGrid();
 	}
 	
@@ -30,46 +55,74 @@ public class Board extends CoordinateSystem {
 	 * Attempts to add a single word at a given set of coordinates on the grid, using a given line to
 	 * determine the direction the word should face.
 	 * 
-	 * @param coords  The coordinates to add the word at
-	 * @param line    The line direction the word should follow
-	 * @param word    The word to add
+	 * @param line  The line the word should follow, starting at the coordinates to add it at
+	 * @param word  The word to add
 	 * 
 	 * @return  Whether the word was successfully added
 	 */
 	public boolean addWord(Line line, String word) {
-		for (char c : word.toCharArray()) {
-			Cell cell = grid.getCell(line.getPosX(), line.getPosY());
+		Coordinate coords = line.getStartCoordinates();
+		int start = topology.getCell(coords.getX(), coords.getY());
+		int direction = topology.indexOf(line.getDirection(), line.getMode());
+		if (start == Topology.NONE || direction == Topology.NONE)
+			return false;
+		return addWord(start, direction, word);
+	}
+	
+	/**
+	 * Attempts to add a single word starting at a given cell, facing one of the board's
+	 * allowed directions.
+	 * 
+	 * @param start      The index of the cell to add the word at
+	 * @param direction  The index of the direction the word should face
+	 * @param word       The word to add
+	 * 
+	 * @return  Whether the word was successfully added
+	 */
+	private boolean addWord(int start, int direction, String word) {
+		int[] next = topology.getNextTable(direction);
+		int length = word.length();
+		
+		int position = start;
+		for (int i = 0; i < length; ++i) {
+			// The word fails to fit if it runs off the edge of the board, or if the board wraps
+			// and the word is long enough to loop back round onto its own first letter
+			if (position == Topology.NONE || (i > 0 && position == start))
+				return false;
+			
 			// We can only insert a character into any cell that is empty or already contains that
 			// letter; otherwise we'd overwrite words we already added.
-			if (cell.equals(c) || cell.equals(' ')) {
-				advanceAlongLine(line);
-			} else {
+			Cell cell = grid.getCell(topology.getX(position), topology.getY(position));
+			if (!(cell.equals(word.charAt(i)) || cell.equals(' ')))
 				return false;
-			}
+			position = next[position];
 		}
 		
-		// Insert the word into the board, using the starting coordinates and moving down the
-		// same line, this time actually setting the characters
-		line.resetPosition();
-		for (char c : word.toCharArray()) {
-			grid.getCell(line.getPosX(), line.getPosY()).setCharacter(c);
-			advanceAlongLine(line);
+		// Insert the word into the board, using the starting cell and moving down the same line,
+		// this time actually setting the characters
+		position = start;
+		for (int i = 0; i < length; ++i) {
+			grid.getCell(topology.getX(position), topology.getY(position)).setCharacter(word.charAt(i));
+			position = next[position];
 		}
 		
 		return true;
 	}
 	
 	/**
-	 * Fills all empty cells on the grid with random alphabetical characters.
+	 * Fills all empty cells on the grid with random letters from the board's alphabet,
+	 * chosen according to the alphabet's letter weights.
 	 */
 	public void fillRemainder() {
+		PhaseEvent phase = PhaseEvent.begin("fillRemainder");
 		for (ArrayList<Cell> row : grid) {
 			for (Cell cell : row) {
 				if (cell.equals(' ')) {
-					cell.setCharacter(Character.toUpperCase(((char)('a' + random.nextInt(26)))));
+					cell.setCharacter(alphabet.randomLetter(random));
 				}
 			}
 		}
+		phase.finish(0, topology.getCellCount());
 	}
 	
 	/**
@@ -78,38 +131,67 @@ public class Board extends CoordinateSystem {
 	 * @param words  The words to add
 	 */
 	public void fillWords(String[] words) {
+		fillWords(words, Deadline.NONE, CancellationToken.NONE);
+	}
+	
+	/**
+	 * Fills the grid with given words at random positions and in random directions, stopping
+	 * early if a deadline passes or a cancellation token is cancelled. Any word being placed
+	 * when the board stops, and every word after it, is recorded as unattempted.
+	 * 
+	 * @param words     The words to add
+	 * @param deadline  The deadline to stop by
+	 * @param token     The token to stop on
+	 * 
+	 * @return  Whether every word was attempted
+	 */
+	public boolean fillWords(String[] words, Deadline deadline, CancellationToken token) {
 		boolean success;
 		int attempts;
+		int cellCount = topology.getCellCount();
+		int directionCount = topology.getDirectionCount();
+		PhaseEvent phase = PhaseEvent.begin("fillWords");
 		
-		for (String word : words) {
+		for (int w = 0; w < words.length; ++w) {
+			String word = words[w];
 			success = false;
 			attempts = 0;
+			PlacementTimeoutEvent timeoutEvent = new PlacementTimeoutEvent();
+			timeoutEvent.begin();
 			
 			// The easiest way to insert each word is to simply loop, choosing random coordinates
 			// and directions until we either succeed or time out
 			while (!success && attempts < timeout) {
-				++attempts;
-				Coordinate coords = new Coordinate(random.nextInt(size), random.nextInt(size));
-				Line line = new Line(coords, DIRECTIONS[random.nextInt(4)], MODES[random.nextInt(2)]);
-				
-				// An IndexOutOfBoundsException will occur if the word runs past the edge of the board, so we
-				// have to catch it. Given it just signifies a failure, we don't need to do anything with it.
-				try {
-					success = addWord(line, word);
-				} catch (IndexOutOfBoundsException e) {
-					;
+				if (attempts % STOP_CHECK_INTERVAL == 0 && (token.isCancelled() || deadline.hasExpired())) {
+					for (int u = w; u < words.length; ++u)
+						unattemptedWords.add(words[u]);
+					phase.finish(words.length, cellCount);
+					return false;
 				}
 				
+				++attempts;
+				success = cellCount > 0 && directionCount > 0 && addWord(
+					random.nextInt(cellCount), random.nextInt(directionCount), word
+				);
+				
 				// We need a timeout to avoid an infinite loop in case the word combination doesn't fit anywhere
 				if (!success && attempts == timeout) {
-					System.out.println(
-						String.format("Failed to add %s; timed out on too many failed attempts.", word)
-					);
-					++failedWordCount;
+					failedWords.add(word);
+					timeoutEvent.end();
+					if (timeoutEvent.shouldCommit()) {
+						timeoutEvent.word = word;
+						timeoutEvent.wordLength = word.length();
+						timeoutEvent.attempts = attempts;
+						timeoutEvent.commit();
+					}
 					break;
 				}
 			}
+			if (success)
+				placedWords.add(word);
 		}
+		phase.finish(words.length, cellCount);
+		return true;
 	}
 	
 	/**
@@ -117,13 +199,24 @@ public class Board extends CoordinateSystem {
 	 * is a row, and each character is a single cell on  a given row.
 	 */
 	public void generateEmptyGrid() {
+		 PhaseEvent phase = PhaseEvent.begin("generateEmptyGrid");
 		 grid = new Grid();
-		 for (int y = 0; y < size; ++y) {
+		 for (int y = 0; y < topology.getHeight(); ++y) {
 			 ArrayList<Cell> row = new ArrayList<Cell>();
-			 for (int x = 0; x < size; ++x)
+			 for (int x = 0; x < topology.getWidth(); ++x)
 				 row.add(new Cell(' ', x, y));
 			 grid.addRow(row);
 		 }
+		 phase.finish(0, topology.getCellCount());
+	}
+	
+	/**
+	 * Fetch the alphabet the board is filled from.
+	 * 
+	 * @return  The alphabet
+	 */
+	public Alphabet getAlphabet() {
+		return alphabet;
 	}
 	
 	/**
@@ -132,7 +225,35 @@ public class Board extends CoordinateSystem {
 	 * @return  The number of failed words
 	 */
 	public int getFailedWordCount() {
-		return failedWordCount;
+		return failedWords.size();
+	}
+	
+	/**
+	 * Fetch the list of words that failed to be added to the board.
+	 * 
+	 * @return  The failed words
+	 */
+	public ArrayList<String> getFailedWords() {
+		return failedWords;
+	}
+	
+	/**
+	 * Fetch the list of words that were successfully added to the board.
+	 * 
+	 * @return  The placed words
+	 */
+	public ArrayList<String> getPlacedWords() {
+		return placedWords;
+	}
+	
+	/**
+	 * Fetch the list of words that were not attempted because filling the board was stopped
+	 * early by a deadline or cancellation.
+	 * 
+	 * @return  The unattempted words
+	 */
+	public ArrayList<String> getUnattemptedWords() {
+		return unattemptedWords;
 	}
 	
 	/**
@@ -143,4 +264,13 @@ public class Board extends CoordinateSystem {
 	public Grid getGrid() {
 		return grid;
 	}
+	
+	/**
+	 * Fetch the topology of the board.
+	 * 
+	 * @return  The topology
+	 */
+	public Topology getTopology() {
+		return topology;
+	}
 }
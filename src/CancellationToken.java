@@ -0,0 +1,46 @@
+/**
+ * A flag through which one thread can ask work running on another to stop early.
+ * Boards, Solvers and WordSets check their token inside their main loops, and
+ * stop with partial results once it has been cancelled. Checking is a single
+ * volatile read.
+ * 
+ * A token cannot be reset once cancelled; a new one must be created for new work.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public final class CancellationToken {
+
+	/**
+	 * A token that is never cancelled, for work that should always run to completion.
+	 */
+	public static final CancellationToken NONE = new CancellationToken(false);
+	
+	private final boolean cancellable;
+	private volatile boolean cancelled;
+	
+	public CancellationToken() {
+		this(true);
+	}
+	
+	private CancellationToken(boolean cancellable) {
+		this.cancellable = cancellable;
+	}
+	
+	/**
+	 * Ask the work holding the token to stop as soon as possible.
+	 */
+	public void cancel() {
+		if (!cancellable)
+			throw new UnsupportedOperationException("CancellationToken.NONE cannot be cancelled.");
+		cancelled = true;
+	}
+	
+	/**
+	 * Determine whether the token has been cancelled.
+	 * 
+	 * @return  Whether the token has been cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+}
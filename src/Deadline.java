@@ -0,0 +1,89 @@
+import java.time.Duration;
+
+/**
+ * An immutable point in time by which a piece of work must finish, measured with
+ * System.nanoTime() so that it is unaffected by changes to the wall clock.
+ * 
+ * Boards, Solvers and WordSets check their deadline inside their main loops, and
+ * stop early with partial results once it has passed. Checking costs a single
+ * call to System.nanoTime(), so it is cheap enough to do once per word, per
+ * attempt or per row of the grid.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public final class Deadline {
+
+	/**
+	 * A deadline that never passes.
+	 */
+	public static final Deadline NONE = new Deadline(0, false);
+	
+	private final long expiresAt;
+	private final boolean bounded;
+	
+	private Deadline(long expiresAt, boolean bounded) {
+		this.expiresAt = expiresAt;
+		this.bounded = bounded;
+	}
+	
+	/**
+	 * Create a deadline that passes after a given duration from now.
+	 * 
+	 * @param duration  The time allowed
+	 * 
+	 * @return  The deadline
+	 */
+	public static Deadline after(Duration duration) {
+		return afterNanos(duration.toNanos());
+	}
+	
+	/**
+	 * Create a deadline that passes after a given number of milliseconds from now.
+	 * 
+	 * @param millis  The time allowed, in milliseconds
+	 * 
+	 * @return  The deadline
+	 */
+	public static Deadline afterMillis(long millis) {
+		return after(Duration.ofMillis(millis));
+	}
+	
+	/**
+	 * Create a deadline that passes after a given number of nanoseconds from now.
+	 * 
+	 * @param nanos  The time allowed, in nanoseconds
+	 * 
+	 * @return  The deadline
+	 */
+	public static Deadline afterNanos(long nanos) {
+		return new Deadline(System.nanoTime() + nanos, true);
+	}
+	
+	/**
+	 * Determine whether the deadline has passed.
+	 * 
+	 * @return  Whether the deadline has passed
+	 */
+	public boolean hasExpired() {
+		return bounded && System.nanoTime() - expiresAt >= 0;
+	}
+	
+	/**
+	 * Fetch the time left before the deadline passes.
+	 * 
+	 * @return  The time left, which is zero once the deadline has passed, or null if the
+	 *          deadline never passes
+	 */
+	public Duration getRemaining() {
+		if (!bounded)
+			return null;
+		return Duration.ofNanos(Math.max(0, expiresAt - System.nanoTime()));
+	}
+	
+	/**
+	 * Returns a string representation of the Deadline.
+	 */
+	public String toString() {
+		return bounded ? String.format("Deadline in %s", getRemaining()) : "No deadline";
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * An immutable record of a single approximate occurrence of a word on a grid: where
+ * it lies, the letters actually found there, and how many of them differ from the
+ * word.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public final class FuzzyMatch {
+
+	private final WordLocation location;
+	private final String text;
+	private final int mismatches;
+	
+	public FuzzyMatch(WordLocation location, String text, int mismatches) {
+		this.location = location;
+		this.text = text;
+		this.mismatches = mismatches;
+	}
+	
+	/**
+	 * Fetch the word that was searched for.
+	 * 
+	 * @return  The word
+	 */
+	public String getWord() {
+		return location.getWord();
+	}
+	
+	/**
+	 * Fetch the location of the occurrence.
+	 * 
+	 * @return  The location
+	 */
+	public WordLocation getLocation() {
+		return location;
+	}
+	
+	/**
+	 * Fetch the letters found on the grid at the occurrence.
+	 * 
+	 * @return  The letters found
+	 */
+	public String getText() {
+		return text;
+	}
+	
+	/**
+	 * Fetch the number of letters at the occurrence that differ from the word.
+	 * 
+	 * @return  The number of mismatched letters
+	 */
+	public int getMismatches() {
+		return mismatches;
+	}
+	
+	/**
+	 * Returns a string representation of the FuzzyMatch.
+	 */
+	public String toString() {
+		return String.format("%s (found %s, %d mismatch(es))", location, text, mismatches);
+	}
+}
@@ -0,0 +1,140 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Searches a grid for approximate occurrences of words, reporting every place a
+ * word appears with up to a given number of mismatched letters (its Hamming
+ * distance) in any direction. Useful for catching near-misses that could confuse
+ * players, and for "find the misspelled word" puzzles.
+ * 
+ * Matching is bit-parallel, in the style of the shift-or algorithm: each prefix
+ * of the word is tracked as one bit of a long, with one such state per number of
+ * mismatches allowed, so each letter along a line costs a handful of bitwise
+ * operations per mismatch allowed. As such, words may be at most 63 letters long.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public class FuzzySearch {
+
+	/**
+	 * The longest word that can be searched for, such that every prefix fits in a long.
+	 */
+	public static final int MAX_WORD_LENGTH = Long.SIZE - 1;
+	
+	private final LineIndex index;
+	
+	public FuzzySearch(Grid grid) {
+		this(new LineIndex(grid));
+	}
+	
+	public FuzzySearch(LineIndex index) {
+		this.index = index;
+	}
+	
+	/**
+	 * Finds every occurrence of each of the given words with at most a given number of
+	 * mismatched letters.
+	 * 
+	 * @param words          The words to look for
+	 * @param maxMismatches  The largest number of mismatched letters to allow
+	 * 
+	 * @return  The occurrences found, grouped by word in the order given
+	 */
+	public List<FuzzyMatch> find(String[] words, int maxMismatches) {
+		ArrayList<FuzzyMatch> matches = new ArrayList<FuzzyMatch>();
+		for (String word : words)
+			find(word, maxMismatches, matches);
+		return matches;
+	}
+	
+	/**
+	 * Finds every occurrence of each of the given words with at most a given number of
+	 * mismatched letters, adding each to a MatchStore rather than creating a FuzzyMatch
+	 * for it. Suited to sweeps that find too many occurrences to keep as objects.
+	 * 
+	 * @param words          The words to look for
+	 * @param maxMismatches  The largest number of mismatched letters to allow
+	 * @param store          The store to add occurrences to
+	 */
+	public void find(String[] words, int maxMismatches, MatchStore store) {
+		for (String word : words) {
+			long[] masks = getMasks(word, maxMismatches);
+			if (masks == null)
+				continue;
+			int length = word.length();
+			index.scan(masks, length, maxMismatches, (d, p, offset, mismatches) -> {
+				index.addMatch(store, word, d, p, offset, length, mismatches);
+			});
+		}
+	}
+	
+	/**
+	 * Finds every occurrence of a word with at most a given number of mismatched letters.
+	 * 
+	 * @param word           The word to look for
+	 * @param maxMismatches  The largest number of mismatched letters to allow
+	 * 
+	 * @return  The occurrences found
+	 */
+	public List<FuzzyMatch> find(String word, int maxMismatches) {
+		ArrayList<FuzzyMatch> matches = new ArrayList<FuzzyMatch>();
+		find(word, maxMismatches, matches);
+		return matches;
+	}
+	
+	/**
+	 * Finds every occurrence of a word with at most a given number of mismatched letters,
+	 * adding each to a list.
+	 * 
+	 * @param word           The word to look for
+	 * @param maxMismatches  The largest number of mismatched letters to allow
+	 * @param matches        The list to add occurrences to
+	 */
+	private void find(String word, int maxMismatches, List<FuzzyMatch> matches) {
+		long[] masks = getMasks(word, maxMismatches);
+		if (masks == null)
+			return;
+		
+		int length = word.length();
+		index.scan(masks, length, maxMismatches, (d, p, offset, mismatches) -> {
+			Line line = index.createLine(d, p, offset);
+			matches.add(new FuzzyMatch(
+				new WordLocation(word, line), index.getText(d, p, offset, length), mismatches
+			));
+		});
+	}
+	
+	/**
+	 * Builds the shift-or masks for matching a word against the index's lines, checking the
+	 * word and number of mismatches are valid.
+	 * 
+	 * @param word           The word to look for
+	 * @param maxMismatches  The largest number of mismatched letters to allow
+	 * 
+	 * @return  The mask for each letter code, or null if the grid is empty
+	 */
+	private long[] getMasks(String word, int maxMismatches) {
+		int length = word.length();
+		if (length == 0 || length > MAX_WORD_LENGTH)
+			throw new IllegalArgumentException(
+				String.format("Words must be between 1 and %d letters long.", MAX_WORD_LENGTH)
+			);
+		if (maxMismatches < 0)
+			throw new IllegalArgumentException("The number of mismatches must not be negative.");
+		
+		if (index.getSymbolCount() == 0)
+			return null;
+		
+		// For each letter on the grid, a mask with a zero bit at every position in the word
+		// holding that letter. Letters of the word that are not on the grid never match.
+		long[] masks = new long[index.getSymbolCount()];
+		Arrays.fill(masks, ~0L);
+		for (int i = 0; i < length; ++i) {
+			int code = index.getCode(word.charAt(i));
+			if (code >= 0)
+				masks[code] &= ~(1L << i);
+		}
+		return masks;
+	}
+}
@@ -24,6 +24,55 @@ public class Grid implements Iterable<ArrayList<Cell>> {
 		grid.add(row);
 	}
 	
+	/**
+	 * Construct a new Grid from rows of characters, with one character per Cell.
+	 * 
+	 * @param rows  The rows of characters
+	 * 
+	 * @return  The new Grid
+	 */
+	public static Grid fromRows(String[] rows) {
+		Grid grid = new Grid();
+		for (int y = 0; y < rows.length; ++y) {
+			ArrayList<Cell> row = new ArrayList<Cell>();
+			for (int x = 0; x < rows[y].length(); ++x)
+				row.add(new Cell(rows[y].charAt(x), x, y));
+			grid.addRow(row);
+		}
+		return grid;
+	}
+	
+	/**
+	 * Fetch the number of Cells in each row of the Grid.
+	 * 
+	 * @return  The width of the Grid
+	 */
+	public int getWidth() {
+		return grid.isEmpty() ? 0 : grid.get(0).size();
+	}
+	
+	/**
+	 * Determine whether every row of the Grid holds the same number of Cells.
+	 * 
+	 * @return  Whether the Grid is rectangular
+	 */
+	public boolean isRectangular() {
+		for (ArrayList<Cell> row : grid) {
+			if (row.size() != getWidth())
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Fetch the number of rows in the Grid.
+	 * 
+	 * @return  The height of the Grid
+	 */
+	public int getHeight() {
+		return grid.size();
+	}
+	
 	/**
 	 * Fetch a row of Cells at a specific Y coordinate.
 	 * 
@@ -58,6 +107,23 @@ public class Grid implements Iterable<ArrayList<Cell>> {
 		grid.get(y).set(x, c);
 	}
 	
+	/**
+	 * Convert the Grid to rows of characters, with one character per Cell and without
+	 * any colouring.
+	 * 
+	 * @return  The rows of characters
+	 */
+	public String[] toRows() {
+		String[] rows = new String[grid.size()];
+		for (int y = 0; y < rows.length; ++y) {
+			StringBuilder row = new StringBuilder();
+			for (Cell cell : grid.get(y))
+				row.append(cell.getCharacter());
+			rows[y] = row.toString();
+		}
+		return rows;
+	}
+	
 	/**
 	 * Returns an iterator over elements of type Cell.
 	 * 
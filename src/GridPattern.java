@@ -0,0 +1,181 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A compiled pattern describing a fixed-length run of letters, for querying the
+ * lines of a grid through a LineIndex. Patterns are built from the following
+ * elements, each matching exactly one letter:
+ * 
+ * <ul>
+ * <li>A letter, matching itself</li>
+ * <li>{@code ?}, matching any letter</li>
+ * <li>{@code [ABC]}, matching any one of the letters listed</li>
+ * <li>{@code [^ABC]}, matching any letter except those listed</li>
+ * </ul>
+ * 
+ * Any element may be followed by a count in braces to repeat it, so "C?T" matches
+ * three-letter runs starting with C and ending with T, and "Q?{6}" matches any
+ * seven-letter run starting with Q. Letters are matched ignoring case.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public final class GridPattern {
+
+	/**
+	 * The longest run a pattern can describe, such that every prefix fits in a long.
+	 */
+	public static final int MAX_LENGTH = Long.SIZE - 1;
+	
+	private final String source;
+	
+	// For each position in the run, the letters it lists, or null if it matches any
+	// letter, and whether the listed letters are the ones it does not match
+	private final String[] letters;
+	private final boolean[] negated;
+	
+	private GridPattern(String source, String[] letters, boolean[] negated) {
+		this.source = source;
+		this.letters = letters;
+		this.negated = negated;
+	}
+	
+	/**
+	 * Compile a pattern from its text.
+	 * 
+	 * @param source  The text of the pattern
+	 * 
+	 * @return  The compiled pattern
+	 */
+	public static GridPattern compile(String source) {
+		String pattern = source.toUpperCase();
+		ArrayList<String> letters = new ArrayList<String>();
+		ArrayList<Boolean> negated = new ArrayList<Boolean>();
+		
+		int i = 0;
+		while (i < pattern.length()) {
+			char c = pattern.charAt(i);
+			String listed;
+			boolean negate = false;
+			
+			if (c == '?') {
+				listed = null;
+				++i;
+			} else if (c == '[') {
+				int close = pattern.indexOf(']', i);
+				if (close < 0)
+					throw new IllegalArgumentException("Unclosed '[' in pattern: " + source);
+				negate = i + 1 < close && pattern.charAt(i + 1) == '^';
+				listed = pattern.substring(negate ? i + 2 : i + 1, close);
+				if (listed.isEmpty())
+					throw new IllegalArgumentException("Empty '[]' in pattern: " + source);
+				i = close + 1;
+			} else if (Character.isLetter(c)) {
+				listed = Character.toString(c);
+				++i;
+			} else {
+				throw new IllegalArgumentException(
+					String.format("Unexpected '%c' in pattern: %s", c, source)
+				);
+			}
+			
+			int count = 1;
+			if (i < pattern.length() && pattern.charAt(i) == '{') {
+				int close = pattern.indexOf('}', i);
+				if (close < 0)
+					throw new IllegalArgumentException("Unclosed '{' in pattern: " + source);
+				try {
+					count = Integer.parseInt(pattern.substring(i + 1, close));
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Invalid count in pattern: " + source);
+				}
+				if (count < 1)
+					throw new IllegalArgumentException("Invalid count in pattern: " + source);
+				i = close + 1;
+			}
+			
+			for (int j = 0; j < count && letters.size() <= MAX_LENGTH; ++j) {
+				letters.add(listed);
+				negated.add(negate);
+			}
+		}
+		
+		if (letters.isEmpty() || letters.size() > MAX_LENGTH)
+			throw new IllegalArgumentException(
+				String.format("A pattern must match between 1 and %d letters: %s", MAX_LENGTH, source)
+			);
+		
+		boolean[] negatedArray = new boolean[negated.size()];
+		for (int j = 0; j < negatedArray.length; ++j)
+			negatedArray[j] = negated.get(j);
+		return new GridPattern(source, letters.toArray(new String[letters.size()]), negatedArray);
+	}
+	
+	/**
+	 * Fetch the number of letters the pattern matches.
+	 * 
+	 * @return  The length of the pattern
+	 */
+	public int getLength() {
+		return letters.length;
+	}
+	
+	/**
+	 * Determine whether a given letter is matched at a given position in the pattern.
+	 * 
+	 * @param position  The position in the pattern
+	 * @param letter    The letter to check
+	 * 
+	 * @return  Whether the letter is matched
+	 */
+	public boolean accepts(int position, char letter) {
+		if (letters[position] == null)
+			return true;
+		return (letters[position].indexOf(Character.toUpperCase(letter)) >= 0) != negated[position];
+	}
+	
+	/**
+	 * Determine whether a given string is matched by the pattern in its entirety.
+	 * 
+	 * @param text  The string to check
+	 * 
+	 * @return  Whether the string is matched
+	 */
+	public boolean matches(String text) {
+		if (text.length() != letters.length)
+			return false;
+		for (int i = 0; i < letters.length; ++i) {
+			if (!accepts(i, text.charAt(i)))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Builds the shift-or masks for matching the pattern against the lines of a LineIndex.
+	 * Each mask has a zero bit at every position in the pattern that accepts the letter
+	 * with that code.
+	 * 
+	 * @param index  The index whose lines are to be matched
+	 * 
+	 * @return  The mask for each letter code of the index
+	 */
+	long[] getMasks(LineIndex index) {
+		long[] masks = new long[index.getSymbolCount()];
+		Arrays.fill(masks, ~0L);
+		for (int code = 0; code < masks.length; ++code) {
+			char letter = index.getSymbol(code);
+			for (int i = 0; i < letters.length; ++i) {
+				if (accepts(i, letter))
+					masks[code] &= ~(1L << i);
+			}
+		}
+		return masks;
+	}
+	
+	/**
+	 * Returns the text the pattern was compiled from.
+	 */
+	public String toString() {
+		return source;
+	}
+}
@@ -0,0 +1,371 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An index of every line running across a Grid, in every direction its Topology
+ * allows. Each line is stored once as the indices of its cells and as the dense
+ * codes of its letters, so that searches can scan compact arrays instead of
+ * walking Cells. Codes are numbered from 0 over exactly the characters found on
+ * the grid, and are stored as chars, so grids in any script can be indexed,
+ * however many distinct characters they hold.
+ * 
+ * A line starts at a cell with no previous cell in its direction and runs until it
+ * reaches the edge of the grid. On a grid that wraps, lines have no ends, and are
+ * instead stored as cycles, starting from an arbitrary cell.
+ * 
+ * Once built, the index can be queried any number of times with GridPatterns
+ * without visiting the Grid's cells again. It is a snapshot of the Grid when it
+ * was built; if the Grid is edited afterwards, a new index must be built to see
+ * the changes.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public class LineIndex {
+
+	private final Topology topology;
+	
+	// The character each code stands for, and the code of each character
+	private final char[] symbols;
+	private final HashMap<Character, Integer> symbolCodes;
+	
+	// For each direction, the cell indices and letter codes of each line, and whether
+	// each line is a cycle
+	private final int[][][] cells;
+	private final char[][][] codes;
+	private final boolean[][] cyclic;
+	
+	public LineIndex(Grid grid) {
+		this(grid, Topology.of(grid));
+	}
+	
+	public LineIndex(Grid grid, Topology topology) {
+		topology.requireFits(grid);
+		this.topology = topology;
+		
+		// Number exactly the characters on the grid, so that letter codes are as dense as
+		// possible whatever script the grid is written in
+		symbolCodes = new HashMap<Character, Integer>();
+		StringBuilder letters = new StringBuilder();
+		for (ArrayList<Cell> row : grid) {
+			for (Cell cell : row) {
+				if (symbolCodes.putIfAbsent(cell.getCharacter(), letters.length()) == null)
+					letters.append(cell.getCharacter());
+			}
+		}
+		symbols = letters.toString().toCharArray();
+		
+		int directionCount = topology.getDirectionCount();
+		cells = new int[directionCount][][];
+		codes = new char[directionCount][][];
+		cyclic = new boolean[directionCount][];
+		for (int d = 0; d < directionCount; ++d)
+			indexDirection(grid, d);
+	}
+	
+	/**
+	 * Finds and stores every line running in a single direction.
+	 * 
+	 * @param grid  The grid being indexed
+	 * @param d     The index of the direction
+	 */
+	private void indexDirection(Grid grid, int d) {
+		int cellCount = topology.getCellCount();
+		boolean[] visited = new boolean[cellCount];
+		ArrayList<int[]> lines = new ArrayList<int[]>();
+		ArrayList<Boolean> lineCyclic = new ArrayList<Boolean>();
+		
+		// Open lines start wherever there is no previous cell to come from
+		for (int start = 0; start < cellCount; ++start) {
+			if (topology.previous(d, start) == Topology.NONE) {
+				lines.add(walk(d, start, visited));
+				lineCyclic.add(false);
+			}
+		}
+		
+		// Anything not yet visited must lie on a cycle, which only happens when the grid wraps
+		for (int start = 0; start < cellCount; ++start) {
+			if (!visited[start]) {
+				lines.add(walk(d, start, visited));
+				lineCyclic.add(true);
+			}
+		}
+		
+		cells[d] = lines.toArray(new int[lines.size()][]);
+		codes[d] = new char[lines.size()][];
+		cyclic[d] = new boolean[lines.size()];
+		for (int p = 0; p < lines.size(); ++p) {
+			int[] line = cells[d][p];
+			codes[d][p] = new char[line.length];
+			for (int i = 0; i < line.length; ++i) {
+				char c = grid.getCell(topology.getX(line[i]), topology.getY(line[i])).getCharacter();
+				codes[d][p][i] = (char)getCode(c);
+			}
+			cyclic[d][p] = lineCyclic.get(p);
+		}
+	}
+	
+	/**
+	 * Walks from a given cell in a single direction until reaching the edge of the grid or
+	 * returning to a cell already visited, marking each cell along the way as visited.
+	 * 
+	 * @param d        The index of the direction
+	 * @param start    The index of the cell to start from
+	 * @param visited  Which cells have been visited so far
+	 * 
+	 * @return  The indices of the cells walked through
+	 */
+	private int[] walk(int d, int start, boolean[] visited) {
+		ArrayList<Integer> line = new ArrayList<Integer>();
+		for (int cell = start; cell != Topology.NONE && !visited[cell]; cell = topology.next(d, cell)) {
+			visited[cell] = true;
+			line.add(cell);
+		}
+		return line.stream().mapToInt(Integer::intValue).toArray();
+	}
+	
+	/**
+	 * Finds every run of letters along any line that matches a pattern.
+	 * 
+	 * @param pattern  The pattern to match, as accepted by GridPattern.compile()
+	 * 
+	 * @return  The Lines along which each match lies, starting at its first letter
+	 */
+	public List<Line> query(String pattern) {
+		return query(GridPattern.compile(pattern));
+	}
+	
+	/**
+	 * Finds every run of letters along any line that matches a compiled pattern.
+	 * 
+	 * @param pattern  The pattern to match
+	 * 
+	 * @return  The Lines along which each match lies, starting at its first letter
+	 */
+	public List<Line> query(GridPattern pattern) {
+		ArrayList<Line> lines = new ArrayList<Line>();
+		if (symbols.length > 0)
+			scan(pattern.getMasks(this), pattern.getLength(), 0, (d, p, offset, mismatches) -> {
+				lines.add(createLine(d, p, offset));
+			});
+		return lines;
+	}
+	
+	/**
+	 * Finds every run of letters along any line that matches a compiled pattern, adding each
+	 * to a MatchStore under the pattern's text rather than creating a Line for it.
+	 * 
+	 * @param pattern  The pattern to match
+	 * @param store    The store to add matches to
+	 */
+	public void query(GridPattern pattern, MatchStore store) {
+		if (symbols.length == 0)
+			return;
+		String source = pattern.toString();
+		int length = pattern.getLength();
+		scan(pattern.getMasks(this), length, 0, (d, p, offset, mismatches) -> {
+			addMatch(store, source, d, p, offset, length, mismatches);
+		});
+	}
+	
+	/**
+	 * Scans every line for runs of letters matching a set of masks, allowing up to a given
+	 * number of mismatched letters, in the style of the shift-or algorithm.
+	 * 
+	 * Each mask corresponds to a letter code, and has a zero bit at every position in the
+	 * run that accepts that letter. On cycles, runs that cross the cycle's arbitrary
+	 * starting point are found too, but runs longer than the cycle are not.
+	 * 
+	 * @param masks          The mask for each letter code of the index
+	 * @param length         The length of the runs to find, at most 63
+	 * @param maxMismatches  The largest number of mismatched letters to allow
+	 * @param handler        The handler to pass each match to
+	 */
+	void scan(long[] masks, int length, int maxMismatches, LineMatchHandler handler) {
+		long[] states = new long[maxMismatches + 1];
+		long found = 1L << (length - 1);
+		
+		for (int d = 0; d < codes.length; ++d) {
+			for (int p = 0; p < codes[d].length; ++p) {
+				char[] line = codes[d][p];
+				int lineLength = line.length;
+				if (length > lineLength) continue;
+				
+				// A cycle is scanned once round and then on for one run's length less a letter,
+				// so that runs crossing the line's arbitrary starting point are still seen
+				int steps = cyclic[d][p] ? lineLength + length - 1 : lineLength;
+				
+				Arrays.fill(states, ~0L);
+				for (int i = 0, position = 0; i < steps; ++i) {
+					long mask = masks[line[position]];
+					
+					// A bit of state j is clear while the matching prefix of the run ends here
+					// with at most j mismatches. Each state either matches the next letter, or
+					// takes the prefix one mismatch further from the state below.
+					long below = states[0];
+					states[0] = (states[0] << 1) | mask;
+					for (int j = 1; j <= maxMismatches; ++j) {
+						long current = states[j];
+						states[j] = ((current << 1) | mask) & (below << 1);
+						below = current;
+					}
+					
+					if ((states[maxMismatches] & found) == 0 && i >= length - 1) {
+						int mismatches = 0;
+						while ((states[mismatches] & found) != 0)
+							++mismatches;
+						handler.onMatch(d, p, i - length + 1, mismatches);
+					}
+					
+					if (++position == lineLength)
+						position = 0;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Creates a Line starting at a given offset along one of the indexed lines.
+	 * 
+	 * @param d       The index of the direction
+	 * @param p       The index of the line
+	 * @param offset  The offset along the line
+	 * 
+	 * @return  The Line
+	 */
+	Line createLine(int d, int p, int offset) {
+		int start = cells[d][p][offset % cells[d][p].length];
+		return new Line(
+			new Coordinate(topology.getX(start), topology.getY(start)),
+			topology.getDirection(d),
+			topology.getMode(d)
+		);
+	}
+	
+	/**
+	 * Adds a match starting at a given offset along one of the indexed lines to a MatchStore.
+	 * 
+	 * @param store       The store to add the match to
+	 * @param word        The word or pattern matched
+	 * @param d           The index of the direction
+	 * @param p           The index of the line
+	 * @param offset      The offset along the line
+	 * @param length      The number of letters in the match
+	 * @param mismatches  The number of mismatched letters in the match
+	 */
+	void addMatch(MatchStore store, String word, int d, int p, int offset, int length, int mismatches) {
+		int start = cells[d][p][offset % cells[d][p].length];
+		store.add(word, topology.getX(start), topology.getY(start), topology.getStepId(d), length, mismatches);
+	}
+	
+	/**
+	 * Reads a run of letters starting at a given offset along one of the indexed lines,
+	 * wrapping around to the start of cycles.
+	 * 
+	 * @param d       The index of the direction
+	 * @param p       The index of the line
+	 * @param offset  The offset along the line
+	 * @param length  The number of letters to read
+	 * 
+	 * @return  The letters read
+	 */
+	String getText(int d, int p, int offset, int length) {
+		char[] line = codes[d][p];
+		char[] text = new char[length];
+		for (int i = 0; i < length; ++i)
+			text[i] = symbols[line[(offset + i) % line.length]];
+		return new String(text);
+	}
+	
+	/**
+	 * Fetch the topology of the indexed grid.
+	 * 
+	 * @return  The topology
+	 */
+	public Topology getTopology() {
+		return topology;
+	}
+	
+	/**
+	 * Fetch the number of distinct characters found on the indexed grid, and so the number
+	 * of letter codes used to encode each line.
+	 * 
+	 * @return  The number of distinct characters, or 0 if the grid is empty
+	 */
+	public int getSymbolCount() {
+		return symbols.length;
+	}
+	
+	/**
+	 * Fetch the letter code of a character.
+	 * 
+	 * @param c  The character
+	 * 
+	 * @return  The code of the character, or -1 if it is not on the grid
+	 */
+	public int getCode(char c) {
+		Integer code = symbolCodes.get(c);
+		return code == null ? -1 : code;
+	}
+	
+	/**
+	 * Fetch the character a letter code stands for.
+	 * 
+	 * @param code  The code
+	 * 
+	 * @return  The character
+	 */
+	public char getSymbol(int code) {
+		return symbols[code];
+	}
+	
+	/**
+	 * Fetch the number of lines running in a given direction.
+	 * 
+	 * @param d  The index of the direction
+	 * 
+	 * @return  The number of lines
+	 */
+	public int getLineCount(int d) {
+		return cells[d].length;
+	}
+	
+	/**
+	 * Determine whether a given line is a cycle, wrapping around the grid back to its start.
+	 * 
+	 * @param d  The index of the direction
+	 * @param p  The index of the line
+	 * 
+	 * @return  Whether the line is a cycle
+	 */
+	public boolean isCyclic(int d, int p) {
+		return cyclic[d][p];
+	}
+	
+	/**
+	 * Fetch the indices of the cells along a given line, for use in hot loops. The array
+	 * must not be modified.
+	 * 
+	 * @param d  The index of the direction
+	 * @param p  The index of the line
+	 * 
+	 * @return  The indices of the cells
+	 */
+	int[] getCells(int d, int p) {
+		return cells[d][p];
+	}
+	
+	/**
+	 * Fetch the letter codes along a given line, for use in hot loops. The array must not
+	 * be modified.
+	 * 
+	 * @param d  The index of the direction
+	 * @param p  The index of the line
+	 * 
+	 * @return  The letter codes
+	 */
+	char[] getCodes(int d, int p) {
+		return codes[d][p];
+	}
+}
@@ -0,0 +1,17 @@
+/**
+ * Receives each match found while scanning the lines of a LineIndex.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+interface LineMatchHandler {
+
+	/**
+	 * Handles a single match.
+	 * 
+	 * @param d           The index of the direction of the line the match lies on
+	 * @param p           The index of the line the match lies on
+	 * @param offset      The offset along the line of the match's first letter
+	 * @param mismatches  The number of letters of the match that did not match
+	 */
+	void onMatch(int d, int p, int offset, int mismatches);
+}
@@ -0,0 +1,398 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A compact store for large numbers of matches, such as those found by sweeping a
+ * grid with FuzzySearch or LineIndex queries. Each match is packed into a single
+ * long, holding its start coordinates, the step ID of its direction, its length,
+ * its number of mismatched letters and the ID of the word or pattern it matched,
+ * so a match costs eight bytes rather than a Line, two Coordinates and a map entry.
+ * 
+ * Matches are read back by streaming the packed values and decoding them with the
+ * static getters, in the order they were added. Lines and WordLocations are only
+ * created when asked for, through toLine() and toLocation().
+ * 
+ * A store may be given a spill threshold, in which case matches are written out to a
+ * temporary file whenever that many are held in memory, so that sweeps producing
+ * more matches than fit in memory can still be kept. Stores with a spill threshold
+ * should be closed once finished with, to delete the file.
+ * 
+ * A MatchStore is not safe for use by several threads at once, and matches must not
+ * be added while a stream over the store is open.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public class MatchStore implements Closeable {
+
+	// The width of each field of a packed match, from the lowest bits up
+	private static final int X_BITS = 16;
+	private static final int Y_BITS = 16;
+	private static final int STEP_BITS = 3;
+	private static final int LENGTH_BITS = 7;
+	private static final int MISMATCH_BITS = 6;
+	private static final int WORD_BITS = 16;
+	
+	private static final int Y_SHIFT = X_BITS;
+	private static final int STEP_SHIFT = Y_SHIFT + Y_BITS;
+	private static final int LENGTH_SHIFT = STEP_SHIFT + STEP_BITS;
+	private static final int MISMATCH_SHIFT = LENGTH_SHIFT + LENGTH_BITS;
+	private static final int WORD_SHIFT = MISMATCH_SHIFT + MISMATCH_BITS;
+	
+	/**
+	 * The largest X or Y coordinate a match can start at.
+	 */
+	public static final int MAX_COORDINATE = (1 << X_BITS) - 1;
+	
+	/**
+	 * The longest match that can be stored.
+	 */
+	public static final int MAX_LENGTH = (1 << LENGTH_BITS) - 1;
+	
+	/**
+	 * The largest number of mismatched letters a match can have.
+	 */
+	public static final int MAX_MISMATCHES = (1 << MISMATCH_BITS) - 1;
+	
+	/**
+	 * The largest number of distinct words a single store can hold matches for.
+	 */
+	public static final int MAX_WORDS = 1 << WORD_BITS;
+	
+	private static final int INITIAL_CAPACITY = 64;
+	
+	private final ArrayList<String> words;
+	private final HashMap<String, Integer> wordIds;
+	private final int spillThreshold;
+	
+	private long[] entries;
+	private int count;
+	
+	// The file matches are spilled to, created when first needed, and the number of
+	// matches written to it so far
+	private Path spillFile;
+	private DataOutputStream spillOutput;
+	private long spilled;
+	
+	public MatchStore() {
+		this(0);
+	}
+	
+	/**
+	 * Creates a store that spills its matches to a temporary file whenever it holds a
+	 * given number of them in memory.
+	 * 
+	 * @param spillThreshold  The number of matches to hold in memory, or 0 to never spill
+	 */
+	public MatchStore(int spillThreshold) {
+		if (spillThreshold < 0)
+			throw new IllegalArgumentException("The spill threshold must not be negative.");
+		this.spillThreshold = spillThreshold;
+		words = new ArrayList<String>();
+		wordIds = new HashMap<String, Integer>();
+		entries = new long[spillThreshold > 0 ? Math.min(INITIAL_CAPACITY, spillThreshold) : INITIAL_CAPACITY];
+	}
+	
+	/**
+	 * Adds an exact match of a word along a given Line.
+	 * 
+	 * @param word  The word matched
+	 * @param line  The line the match lies along
+	 */
+	public void add(String word, Line line) {
+		Coordinate start = line.getStartCoordinates();
+		add(word, start.getX(), start.getY(), Topology.getStepId(line.getDirection(), line.getMode()), word.length(), 0);
+	}
+	
+	/**
+	 * Adds a single match.
+	 * 
+	 * @param word        The word or pattern matched
+	 * @param x           The X coordinate the match starts at
+	 * @param y           The Y coordinate the match starts at
+	 * @param step        The step ID of the match's direction, as given by Topology.getStepId()
+	 * @param length      The number of letters in the match
+	 * @param mismatches  The number of letters of the match that differ from the word
+	 */
+	public void add(String word, int x, int y, int step, int length, int mismatches) {
+		if (x < 0 || x > MAX_COORDINATE || y < 0 || y > MAX_COORDINATE)
+			throw new IllegalArgumentException(
+				String.format("Coordinates must be between 0 and %d: [ x: %d, y: %d ]", MAX_COORDINATE, x, y)
+			);
+		if (step < 0 || step >= 1 << STEP_BITS)
+			throw new IllegalArgumentException("Unknown step ID: " + step);
+		if (length < 1 || length > MAX_LENGTH)
+			throw new IllegalArgumentException(
+				String.format("Matches must be between 1 and %d letters long.", MAX_LENGTH)
+			);
+		if (mismatches < 0 || mismatches > MAX_MISMATCHES)
+			throw new IllegalArgumentException(
+				String.format("Matches must have between 0 and %d mismatches.", MAX_MISMATCHES)
+			);
+		
+		long packed = (long)x
+				| (long)y << Y_SHIFT
+				| (long)step << STEP_SHIFT
+				| (long)length << LENGTH_SHIFT
+				| (long)mismatches << MISMATCH_SHIFT
+				| (long)idOf(word) << WORD_SHIFT;
+		
+		if (count == entries.length) {
+			if (spillThreshold > 0 && count >= spillThreshold)
+				spill();
+			else
+				entries = Arrays.copyOf(entries, spillThreshold > 0
+						? Math.min(entries.length * 2, spillThreshold)
+						: entries.length * 2);
+		}
+		entries[count++] = packed;
+	}
+	
+	/**
+	 * Fetch the ID of a word, assigning it the next free ID if it has not been seen before.
+	 * 
+	 * @param word  The word
+	 * 
+	 * @return  The ID of the word
+	 */
+	private int idOf(String word) {
+		Integer id = wordIds.get(word);
+		if (id == null) {
+			if (words.size() == MAX_WORDS)
+				throw new IllegalStateException(
+					String.format("A store can hold matches for at most %d words.", MAX_WORDS)
+				);
+			id = words.size();
+			words.add(word);
+			wordIds.put(word, id);
+		}
+		return id;
+	}
+	
+	/**
+	 * Writes every match held in memory out to the spill file, creating it if needed.
+	 */
+	private void spill() {
+		try {
+			if (spillFile == null) {
+				spillFile = Files.createTempFile("matches", ".bin");
+				spillOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFile)));
+			}
+			for (int i = 0; i < count; ++i)
+				spillOutput.writeLong(entries[i]);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to spill matches to disk", e);
+		}
+		spilled += count;
+		count = 0;
+	}
+	
+	/**
+	 * Fetch the number of matches in the store, including any spilled to disk.
+	 * 
+	 * @return  The number of matches
+	 */
+	public long size() {
+		return spilled + count;
+	}
+	
+	/**
+	 * Determine whether any matches have been spilled to disk.
+	 * 
+	 * @return  Whether any matches have been spilled
+	 */
+	public boolean hasSpilled() {
+		return spilled > 0;
+	}
+	
+	/**
+	 * Streams every packed match in the order they were added, reading back any spilled to
+	 * disk. The stream should be closed once finished with if the store has spilled.
+	 * 
+	 * @return  The packed matches
+	 */
+	public LongStream stream() {
+		LongStream inMemory = Arrays.stream(entries, 0, count);
+		if (spilled == 0)
+			return inMemory;
+		
+		DataInputStream input;
+		try {
+			spillOutput.flush();
+			input = new DataInputStream(new BufferedInputStream(Files.newInputStream(spillFile)));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read spilled matches", e);
+		}
+		long total = spilled;
+		PrimitiveIterator.OfLong reader = new PrimitiveIterator.OfLong() {
+			private long read = 0;
+			
+			public boolean hasNext() {
+				return read < total;
+			}
+			
+			public long nextLong() {
+				try {
+					++read;
+					return input.readLong();
+				} catch (IOException e) {
+					throw new UncheckedIOException("Failed to read spilled matches", e);
+				}
+			}
+		};
+		LongStream onDisk = StreamSupport.longStream(
+			Spliterators.spliterator(reader, total, Spliterator.ORDERED | Spliterator.NONNULL), false
+		).onClose(() -> {
+			try {
+				input.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to close spilled matches", e);
+			}
+		});
+		return LongStream.concat(onDisk, inMemory);
+	}
+	
+	/**
+	 * Passes every packed match to a consumer in the order they were added.
+	 * 
+	 * @param consumer  The consumer to pass each match to
+	 */
+	public void forEach(LongConsumer consumer) {
+		try (LongStream matches = stream()) {
+			matches.forEach(consumer);
+		}
+	}
+	
+	/**
+	 * Fetch the word or pattern a packed match is for.
+	 * 
+	 * @param match  The packed match
+	 * 
+	 * @return  The word
+	 */
+	public String getWord(long match) {
+		return words.get(getWordId(match));
+	}
+	
+	/**
+	 * Creates a Line along which a packed match lies, starting at its first letter.
+	 * 
+	 * @param match  The packed match
+	 * 
+	 * @return  The Line
+	 */
+	public static Line toLine(long match) {
+		int step = getStep(match);
+		return new Line(
+			new Coordinate(getX(match), getY(match)),
+			Topology.getDirectionName(step),
+			Topology.getModeName(step)
+		);
+	}
+	
+	/**
+	 * Creates a WordLocation for a packed match.
+	 * 
+	 * @param match  The packed match
+	 * 
+	 * @return  The WordLocation
+	 */
+	public WordLocation toLocation(long match) {
+		return new WordLocation(getWord(match), toLine(match));
+	}
+	
+	/**
+	 * Fetch the X coordinate a packed match starts at.
+	 * 
+	 * @param match  The packed match
+	 * 
+	 * @return  The X coordinate
+	 */
+	public static int getX(long match) {
+		return (int)(match & MAX_COORDINATE);
+	}
+	
+	/**
+	 * Fetch the Y coordinate a packed match starts at.
+	 * 
+	 * @param match  The packed match
+	 * 
+	 * @return  The Y coordinate
+	 */
+	public static int getY(long match) {
+		return (int)(match >>> Y_SHIFT & MAX_COORDINATE);
+	}
+	
+	/**
+	 * Fetch the step ID of the direction a packed match runs in.
+	 * 
+	 * @param match  The packed match
+	 * 
+	 * @return  The step ID
+	 */
+	public static int getStep(long match) {
+		return (int)(match >>> STEP_SHIFT & ((1 << STEP_BITS) - 1));
+	}
+	
+	/**
+	 * Fetch the number of letters in a packed match.
+	 * 
+	 * @param match  The packed match
+	 * 
+	 * @return  The length
+	 */
+	public static int getLength(long match) {
+		return (int)(match >>> LENGTH_SHIFT & MAX_LENGTH);
+	}
+	
+	/**
+	 * Fetch the number of letters in a packed match that differ from its word.
+	 * 
+	 * @param match  The packed match
+	 * 
+	 * @return  The number of mismatched letters
+	 */
+	public static int getMismatches(long match) {
+		return (int)(match >>> MISMATCH_SHIFT & MAX_MISMATCHES);
+	}
+	
+	/**
+	 * Fetch the ID of the word a packed match is for, as used by getWord().
+	 * 
+	 * @param match  The packed match
+	 * 
+	 * @return  The ID of the word
+	 */
+	public static int getWordId(long match) {
+		return (int)(match >>> WORD_SHIFT & (MAX_WORDS - 1));
+	}
+	
+	/**
+	 * Deletes the spill file, if one was created. The store is empty afterwards.
+	 */
+	public void close() throws IOException {
+		if (spillFile != null) {
+			spillOutput.close();
+			Files.deleteIfExists(spillFile);
+			spillFile = null;
+			spillOutput = null;
+		}
+		spilled = 0;
+		count = 0;
+	}
+}
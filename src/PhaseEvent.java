@@ -0,0 +1,63 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JDK Flight Recorder event covering one phase of generating, solving or
+ * rendering a word search, such as filling the grid with words or solving it.
+ * Recording a run with, for example,
+ * {@code java -XX:StartFlightRecording:filename=run.jfr WordSearch}, shows how
+ * long each phase took, and which allocations and samples fell within it.
+ * 
+ * When recording is off, beginning and finishing a phase costs next to nothing.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+@Name("wordsearch.Phase")
+@Label("Word Search Phase")
+@Category("Word Search")
+@Description("A phase of generating, solving or rendering a word search")
+final class PhaseEvent extends Event {
+
+	@Label("Phase")
+	String phase;
+	
+	@Label("Words")
+	@Description("The number of words the phase worked with")
+	int words;
+	
+	@Label("Cells")
+	@Description("The number of cells on the grid")
+	int cells;
+	
+	/**
+	 * Begin timing a phase.
+	 * 
+	 * @param phase  The name of the phase
+	 * 
+	 * @return  The event for the phase
+	 */
+	static PhaseEvent begin(String phase) {
+		PhaseEvent event = new PhaseEvent();
+		event.phase = phase;
+		event.begin();
+		return event;
+	}
+	
+	/**
+	 * Finish timing the phase, and commit the event if it is being recorded.
+	 * 
+	 * @param words  The number of words the phase worked with
+	 * @param cells  The number of cells on the grid
+	 */
+	void finish(int words, int cells) {
+		end();
+		if (shouldCommit()) {
+			this.words = words;
+			this.cells = cells;
+			commit();
+		}
+	}
+}
@@ -0,0 +1,27 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JDK Flight Recorder event for a word that a Board failed to place before
+ * running out of attempts, covering the time spent on every attempt.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+@Name("wordsearch.PlacementTimeout")
+@Label("Word Placement Timeout")
+@Category("Word Search")
+@Description("A word that could not be placed on a board within the allowed attempts")
+final class PlacementTimeoutEvent extends Event {
+
+	@Label("Word")
+	String word;
+	
+	@Label("Word Length")
+	int wordLength;
+	
+	@Label("Attempts")
+	int attempts;
+}
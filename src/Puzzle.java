@@ -0,0 +1,133 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable snapshot of a generated word search: the letters of its grid, the
+ * words it was generated from, which of them were placed, which could not be placed
+ * and which were never attempted because generation was stopped early, and the
+ * topology the words were placed according to.
+ * Since it cannot be modified, a Puzzle may be shared freely between threads; a
+ * fresh, editable Grid can be created from it at any time.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public final class Puzzle {
+	
+	private final List<String> rows;
+	private final List<String> words;
+	private final List<String> placedWords;
+	private final List<String> failedWords;
+	private final List<String> unattemptedWords;
+	private final Topology topology;
+	
+	public Puzzle(String[] rows, String[] words, List<String> failedWords, Topology topology) {
+		this(rows, words, placedFrom(words, failedWords), failedWords, List.of(), topology);
+	}
+	
+	public Puzzle(String[] rows, String[] words, List<String> placedWords, List<String> failedWords,
+			List<String> unattemptedWords, Topology topology) {
+		this.rows = Collections.unmodifiableList(Arrays.asList(rows.clone()));
+		this.words = Collections.unmodifiableList(Arrays.asList(words.clone()));
+		this.placedWords = List.copyOf(placedWords);
+		this.failedWords = List.copyOf(failedWords);
+		this.unattemptedWords = List.copyOf(unattemptedWords);
+		this.topology = topology;
+	}
+	
+	/**
+	 * Works out which words were placed when every word was attempted, as those that did
+	 * not fail.
+	 * 
+	 * @param words        The words the puzzle was generated from
+	 * @param failedWords  The words that could not be placed
+	 * 
+	 * @return  The placed words
+	 */
+	private static List<String> placedFrom(String[] words, List<String> failedWords) {
+		ArrayList<String> placed = new ArrayList<String>(Arrays.asList(words));
+		for (String word : failedWords)
+			placed.remove(word);
+		return placed;
+	}
+	
+	/**
+	 * Fetch the rows of letters making up the grid.
+	 * 
+	 * @return  The rows of the grid
+	 */
+	public List<String> getRows() {
+		return rows;
+	}
+	
+	/**
+	 * Fetch the words the puzzle was generated from.
+	 * 
+	 * @return  The words
+	 */
+	public List<String> getWords() {
+		return words;
+	}
+	
+	/**
+	 * Fetch the words that were placed on the grid.
+	 * 
+	 * @return  The placed words
+	 */
+	public List<String> getPlacedWords() {
+		return placedWords;
+	}
+	
+	/**
+	 * Fetch the words that could not be placed on the grid.
+	 * 
+	 * @return  The failed words
+	 */
+	public List<String> getFailedWords() {
+		return failedWords;
+	}
+	
+	/**
+	 * Fetch the words that were never attempted because generation was stopped early.
+	 * 
+	 * @return  The unattempted words
+	 */
+	public List<String> getUnattemptedWords() {
+		return unattemptedWords;
+	}
+	
+	/**
+	 * Determine whether generation was stopped early, leaving some words unattempted.
+	 * 
+	 * @return  Whether the puzzle is partial
+	 */
+	public boolean isPartial() {
+		return !unattemptedWords.isEmpty();
+	}
+	
+	/**
+	 * Fetch the topology of the puzzle's grid.
+	 * 
+	 * @return  The topology
+	 */
+	public Topology getTopology() {
+		return topology;
+	}
+	
+	/**
+	 * Create a new Grid holding the letters of the puzzle.
+	 * 
+	 * @return  The new Grid
+	 */
+	public Grid toGrid() {
+		return Grid.fromRows(rows.toArray(new String[rows.size()]));
+	}
+	
+	/**
+	 * Returns a string representation of the Puzzle, with one row of the grid per line.
+	 */
+	public String toString() {
+		return String.join("\n", rows);
+	}
+}
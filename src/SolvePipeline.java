@@ -0,0 +1,232 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Solves a stream of word searches, reading puzzles from an input stream and
+ * writing their solutions to an output stream in the same order.
+ * 
+ * Work passes through three stages: puzzles are parsed on the calling thread,
+ * solved and rendered on a caller-supplied Executor, and written out by a
+ * dedicated writer thread. The stages are linked by a bounded queue, so that when
+ * solving or writing falls behind, parsing blocks until there is room again. At
+ * most a fixed number of puzzles are held in memory at once, however long the
+ * stream runs.
+ * 
+ * Each puzzle in the input is given as the rows of its grid, one row per line
+ * (any spaces between letters are ignored), followed by a line starting with ':'
+ * that lists the words to look for, separated by spaces. Blank lines between
+ * puzzles are ignored. For example:
+ * 
+ * <pre>
+ * C A T X
+ * O X X X
+ * W X X X
+ * : CAT COW
+ * </pre>
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public final class SolvePipeline {
+
+	// Marks the end of the stream for the writer thread; compared by identity
+	private static final CompletableFuture<String> END = CompletableFuture.completedFuture("");
+	
+	private final WordSearchEngine engine;
+	private final int capacity;
+	
+	public SolvePipeline(Executor executor, int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("The pipeline capacity must be at least 1.");
+		this.engine = new WordSearchEngine(executor);
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * Solve every puzzle in an input stream, writing each solution to an output stream
+	 * in the order the puzzles were read. Returns once the whole input has been read and
+	 * every solution written.
+	 * 
+	 * @param input   The stream to read puzzles from
+	 * @param output  The stream to write solutions to
+	 * 
+	 * @throws IOException           If reading or writing fails
+	 * @throws InterruptedException  If interrupted while waiting on another stage
+	 */
+	public void run(InputStream input, OutputStream output) throws IOException, InterruptedException {
+		BlockingQueue<CompletableFuture<String>> queue =
+				new ArrayBlockingQueue<CompletableFuture<String>>(capacity);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+		
+		IOException[] writeError = new IOException[1];
+		Thread writerThread = new Thread(() -> writeError[0] = drain(queue, writer), "solve-pipeline-writer");
+		writerThread.start();
+		try {
+			parse(reader, queue);
+		} finally {
+			queue.put(END);
+			writerThread.join();
+		}
+		
+		if (writeError[0] != null)
+			throw writeError[0];
+	}
+	
+	/**
+	 * Reads puzzles from the input, submitting each to be solved and queueing its
+	 * eventual solution for the writer. Blocks whenever the queue is full.
+	 * 
+	 * @param reader  The reader to parse puzzles from
+	 * @param queue   The queue of pending solutions
+	 * 
+	 * @throws IOException           If reading fails
+	 * @throws InterruptedException  If interrupted while waiting for room in the queue
+	 */
+	private void parse(BufferedReader reader, BlockingQueue<CompletableFuture<String>> queue)
+			throws IOException, InterruptedException {
+		ArrayList<String> rows = new ArrayList<String>();
+		int puzzleNumber = 0;
+		String line;
+		
+		while ((line = reader.readLine()) != null) {
+			String trimmed = line.strip().toUpperCase();
+			if (trimmed.startsWith(":")) {
+				++puzzleNumber;
+				String wordList = trimmed.substring(1).strip();
+				String[] words = wordList.isEmpty() ? new String[0] : wordList.split("\\s+");
+				queue.put(submit(puzzleNumber, rows.toArray(new String[rows.size()]), words));
+				rows.clear();
+			} else if (!trimmed.isEmpty()) {
+				rows.add(trimmed.replaceAll("\\s+", ""));
+			}
+		}
+		
+		// Rows left over at the end of the stream belong to a puzzle with no word list
+		if (!rows.isEmpty())
+			queue.put(CompletableFuture.completedFuture(renderError(++puzzleNumber, "missing word list")));
+	}
+	
+	/**
+	 * Submits a single puzzle to be solved and rendered.
+	 * 
+	 * @param number  The number of the puzzle in the stream
+	 * @param rows    The rows of the puzzle's grid
+	 * @param words   The words to look for
+	 * 
+	 * @return  A future completing with the rendered solution
+	 */
+	private CompletableFuture<String> submit(int number, String[] rows, String[] words) {
+		if (rows.length == 0)
+			return CompletableFuture.completedFuture(renderError(number, "missing grid"));
+		for (String row : rows) {
+			if (row.length() != rows[0].length())
+				return CompletableFuture.completedFuture(renderError(number, "rows differ in length"));
+		}
+		return engine.solve(rows, words).thenApply(result -> render(number, words, result));
+	}
+	
+	/**
+	 * Writes out solutions in queue order until the end of the stream is reached. If
+	 * writing fails, the rest of the queue is still drained, so that the parsing stage
+	 * never blocks on a writer that has stopped.
+	 * 
+	 * @param queue   The queue of pending solutions
+	 * @param writer  The writer to write solutions to
+	 * 
+	 * @return  The first error encountered while writing, or null if there was none
+	 */
+	private IOException drain(BlockingQueue<CompletableFuture<String>> queue, Writer writer) {
+		IOException error = null;
+		int number = 0;
+		while (true) {
+			CompletableFuture<String> future;
+			try {
+				future = queue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return new IOException("Interrupted while writing solutions.", e);
+			}
+			if (future == END) break;
+			++number;
+			
+			String text;
+			try {
+				text = future.join();
+			} catch (CompletionException e) {
+				text = renderError(number, String.valueOf(e.getCause()));
+			}
+			
+			if (error == null) {
+				try {
+					writer.write(text);
+				} catch (IOException e) {
+					error = e;
+				}
+			}
+		}
+		
+		if (error == null) {
+			try {
+				writer.flush();
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+		return error;
+	}
+	
+	/**
+	 * Renders the solution to a single puzzle as text.
+	 * 
+	 * @param number  The number of the puzzle in the stream
+	 * @param words   The words the puzzle gave, including any duplicates
+	 * @param result  The solution to render
+	 * 
+	 * @return  The rendered solution
+	 */
+	private String render(int number, String[] words, SolveResult result) {
+		PhaseEvent phase = PhaseEvent.begin("render");
+		
+		// Count each word as often as it was given, since found words are only listed once
+		int found = 0;
+		for (String word : words) {
+			if (result.getFoundWords().containsKey(word))
+				++found;
+		}
+		
+		StringBuilder text = new StringBuilder();
+		text.append(String.format("Puzzle %d: found %d of %d word(s)%n", number, found, words.length));
+		for (WordLocation location : result.getFoundWords().values())
+			text.append(location).append(System.lineSeparator());
+		for (String word : result.getFailedWords())
+			text.append(String.format("%s: not found%n", word));
+		text.append(System.lineSeparator());
+		phase.finish(words.length, 0);
+		return text.toString();
+	}
+	
+	/**
+	 * Renders a puzzle that could not be solved as text.
+	 * 
+	 * @param number  The number of the puzzle in the stream
+	 * @param reason  Why the puzzle could not be solved
+	 * 
+	 * @return  The rendered error
+	 */
+	private String renderError(int number, String reason) {
+		return String.format("Puzzle %d: invalid, %s%n%n", number, reason);
+	}
+}
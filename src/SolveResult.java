@@ -0,0 +1,89 @@
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable record of the outcome of solving a word search: the location of
+ * every word that was found, the list of words that were not, and, if solving was
+ * stopped early by a deadline or cancellation, the list of words that were never
+ * looked for.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public final class SolveResult {
+	
+	private final Map<String, WordLocation> foundWords;
+	private final List<String> failedWords;
+	private final List<String> unattemptedWords;
+	
+	public SolveResult(Map<String, Line> foundWords, List<String> failedWords) {
+		this(foundWords, failedWords, List.of());
+	}
+	
+	public SolveResult(Map<String, Line> foundWords, List<String> failedWords, List<String> unattemptedWords) {
+		LinkedHashMap<String, WordLocation> locations = new LinkedHashMap<String, WordLocation>();
+		for (Map.Entry<String, Line> entry : foundWords.entrySet())
+			locations.put(entry.getKey(), new WordLocation(entry.getKey(), entry.getValue()));
+		this.foundWords = Collections.unmodifiableMap(locations);
+		this.failedWords = List.copyOf(failedWords);
+		this.unattemptedWords = List.copyOf(unattemptedWords);
+	}
+	
+	/**
+	 * Create a SolveResult from the current state of a Solver.
+	 * 
+	 * @param solver  The Solver to take results from
+	 * 
+	 * @return  The SolveResult
+	 */
+	public static SolveResult of(Solver solver) {
+		return new SolveResult(solver.getFoundWords(), solver.getFailedWords(), solver.getUnattemptedWords());
+	}
+	
+	/**
+	 * Fetch the map of words that were found, and their locations.
+	 * 
+	 * @return  The found words
+	 */
+	public Map<String, WordLocation> getFoundWords() {
+		return foundWords;
+	}
+	
+	/**
+	 * Fetch the list of words that were not found.
+	 * 
+	 * @return  The failed words
+	 */
+	public List<String> getFailedWords() {
+		return failedWords;
+	}
+	
+	/**
+	 * Fetch the list of words that were never looked for, or not looked for in full, because
+	 * solving was stopped early.
+	 * 
+	 * @return  The unattempted words
+	 */
+	public List<String> getUnattemptedWords() {
+		return unattemptedWords;
+	}
+	
+	/**
+	 * Determine whether solving was stopped early, leaving some words unattempted.
+	 * 
+	 * @return  Whether the result is partial
+	 */
+	public boolean isPartial() {
+		return !unattemptedWords.isEmpty();
+	}
+	
+	/**
+	 * Determine whether every word was found.
+	 * 
+	 * @return  Whether every word was found
+	 */
+	public boolean isComplete() {
+		return failedWords.isEmpty() && unattemptedWords.isEmpty();
+	}
+}
@@ -1,67 +1,189 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * A utility class for solving a given word search, represented by a fully formed
  * Grid. Provides the ability to look for given words on the word search Grid,
  * records all words it finds and all it fails to find, and provides the ability
- * to colour in words it finds, highlighting them on the Grid.
+ * to colour in words it finds, highlighting them on the Grid. Once solved, the
+ * results can be kept up to date with edits to the Grid incrementally, checking
+ * only the lines passing through the cells that changed.
+ * 
+ * Lines are followed using the Grid's Topology, so grids of any shape, grids that
+ * wrap around at their edges, and restricted sets of directions are all supported.
  * 
  * @author Murdo B. Maclachlan
  */
 public class Solver extends CoordinateSystem {
 	
 	private Grid grid;
+	private Topology topology;
 	private HashMap<String, Line> foundWords;
 	private ArrayList<String> failedWords;
+	private ArrayList<String> unattemptedWords;
+	
+	// How many times each word was given to solve(), so that update() can list a word that
+	// goes missing as many times as a fresh solve would
+	private HashMap<String, Integer> givenCounts;
+	
+	// What to stop early on during a solve, and whether the Solver has been stopped
+	private Deadline deadline = Deadline.NONE;
+	private CancellationToken token = CancellationToken.NONE;
+	private boolean stopped;
+	
+	// The number of cells read so far, for reporting expensive searches to the flight recorder
+	private long cellsProbed;
 	
-	private static final HashMap<String, String> COLOURS = 
-			new HashMap<String, String>();
+	// Populated once and never modified afterwards, so that Solvers may be created and
+	// used concurrently without racing on shared state
+	private static final Map<String, String> COLOURS;
+	
+	static {
+		HashMap<String, String> colours = new HashMap<String, String>();
+		colours.put("red", "\u001B[31m");
+		colours.put("green", "\u001B[32m");
+		colours.put("yellow", "\u001B[33m");
+		colours.put("blue", "\u001B[34m");
+		colours.put("purple", "\u001B[35m");
+		colours.put("cyan", "\u001B[36m");
+		colours.put("white", "\u001B[37m");
+		COLOURS = Collections.unmodifiableMap(colours);
+	}
 	
 	public Solver(Grid grid) {
-		COLOURS.put("red", "\u001B[31m");
-		COLOURS.put("green", "\u001B[32m");
-		COLOURS.put("yellow", "\u001B[33m");
-		COLOURS.put("blue", "\u001B[34m");
-		COLOURS.put("purple", "\u001B[35m");
-		COLOURS.put("cyan", "\u001B[36m");
-		COLOURS.put("white", "\u001B[37m");
-		
+		this(grid, Topology.of(grid));
+	}
+	
+	public Solver(Grid grid, Topology topology) {
+		topology.requireFits(grid);
 		this.grid = grid;
+		this.topology = topology;
 		foundWords = new HashMap<String, Line>();
 		failedWords = new ArrayList<String>();
+		unattemptedWords = new ArrayList<String>();
+		givenCounts = new HashMap<String, Integer>();
 	}
 	
 	/**
-	 * Given a word and the coordinates of a starting cell, pursues a line along
-	 * the board from that cell in each direction, until it finds the word or
-	 * exhausts all directions.
+	 * Given a word and a starting cell, pursues a line along the board from that
+	 * cell in each direction, until it finds the word or exhausts all directions.
 	 * 
-	 * @param coords  The starting coordinates
-	 * @param word    The word to look for
+	 * @param start  The index of the starting cell
+	 * @param word   The word to look for
 	 * 
 	 * @return  Whether the full word was found
 	 */
-	private boolean findLine(Coordinate coords, String word) {
-		for (String direction : DIRECTIONS) {
-			for (String mode : MODES) {
-				Line line = new Line(coords, direction, mode);
-				try {
-					if (!pursue(line, word.substring(1))) continue;
-				} catch (IndexOutOfBoundsException e) {
-					continue;
+	private boolean findLine(int start, String word) {
+		for (int d = 0; d < topology.getDirectionCount(); ++d) {
+			if (!pursue(start, d, word)) continue;
+			// If pursue() was successful, the full word was found, so record the line it
+			// follows, including its starting coordinates
+			foundWords.put(word, createLine(start, d));
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Creates a Line starting at a given cell and following one of the allowed directions.
+	 * 
+	 * @param start      The index of the starting cell
+	 * @param direction  The index of the direction
+	 * 
+	 * @return  The Line
+	 */
+	private Line createLine(int start, int direction) {
+		return new Line(
+			new Coordinate(topology.getX(start), topology.getY(start)),
+			topology.getDirection(direction),
+			topology.getMode(direction)
+		);
+	}
+	
+	/**
+	 * Determines whether a line of a given length, following the path of a given Line,
+	 * passes through any of the given cells.
+	 * 
+	 * @param line    The line to follow
+	 * @param length  The number of cells along the line to check
+	 * @param cells   The indices of the cells to look for
+	 * 
+	 * @return  Whether the line passes through any of the cells
+	 */
+	private boolean crosses(Line line, int length, int[] cells) {
+		int position = getStartCell(line);
+		int direction = topology.indexOf(line.getDirection(), line.getMode());
+		for (int i = 0; i < length && position != Topology.NONE; ++i) {
+			for (int cell : cells) {
+				if (cell == position)
+					return true;
+			}
+			position = topology.next(direction, position);
+		}
+		return false;
+	}
+	
+	/**
+	 * Looks for a given word in a line that passes through a given cell, trying every
+	 * direction and every offset at which the word could overlap the cell.
+	 * 
+	 * @param cell  The index of the cell the word must pass through
+	 * @param word  The word to look for
+	 * 
+	 * @return  Whether the word was found
+	 */
+	private boolean findLineThrough(int cell, String word) {
+		Cell through = grid.getCell(topology.getX(cell), topology.getY(cell));
+		
+		for (int d = 0; d < topology.getDirectionCount(); ++d) {
+			// Step back from the changed cell one letter at a time, to where the word would
+			// have to start for its i-th letter to land on that cell
+			int start = cell;
+			for (int i = 0; i < word.length() && start != Topology.NONE; ++i) {
+				if (through.equals(word.charAt(i)) && pursue(start, d, word)) {
+					foundWords.put(word, createLine(start, d));
+					return true;
 				}
-				// If pursue() was successful, the full word was found, so record the line it
-				// follows, including its starting coordinates
-				line.resetPosition();
-				foundWords.put(word, line);				
-				return true;
+				start = topology.previous(d, start);
 			}
 		}
 		return false;
 	}
 	
+	/**
+	 * Fetch the index of the cell a given Line starts at.
+	 * 
+	 * @param line  The Line
+	 * 
+	 * @return  The index of the starting cell, or Topology.NONE if it is not on the grid
+	 */
+	private int getStartCell(Line line) {
+		Coordinate coords = line.getStartCoordinates();
+		return topology.getCell(coords.getX(), coords.getY());
+	}
+	
+	/**
+	 * Determines whether a given word lies on the grid along a given Line.
+	 * 
+	 * @param line  The line to follow
+	 * @param word  The word to look for
+	 * 
+	 * @return  Whether the word lies there
+	 */
+	private boolean matchesAt(Line line, String word) {
+		int start = getStartCell(line);
+		int direction = topology.indexOf(line.getDirection(), line.getMode());
+		if (start == Topology.NONE || direction == Topology.NONE)
+			return false;
+		return pursue(start, direction, word);
+	}
+	
 	/**
 	 * Iterates through all the found words and colours them in.
 	 */
@@ -83,9 +205,11 @@ public class Solver extends CoordinateSystem {
 	 * @param word    The word to colour
 	 */
 	private void colourWord(String colour, Line line, String word) {
+		int position = getStartCell(line);
+		int direction = topology.indexOf(line.getDirection(), line.getMode());
 		for (int i = 0; i < word.length(); ++i) {
-			grid.getCell(line.getPosX(), line.getPosY()).setColour(COLOURS.get(colour));
-			advanceAlongLine(line);
+			grid.getCell(topology.getX(position), topology.getY(position)).setColour(COLOURS.get(colour));
+			position = topology.next(direction, position);
 		}
 	}
 	
@@ -101,14 +225,22 @@ public class Solver extends CoordinateSystem {
 	 * @return  Whether the word was found
 	 */
 	private boolean findWord(String word) {
+		int cell = 0;
 		for (ArrayList<Cell> row : grid) {
-			for (Cell cell : row)
+			// Check whether to stop once per row, which is often enough to respond promptly
+			// without checking the clock for every cell
+			if (shouldStop())
+				return false;
+			for (Cell c : row) {
 				// Upon finding a cell that matches the first letter of the word,
-				// we can use its coordinates as a start point to search adjacent
-				// cells for the rest of the word
-				if (cell.equals(word.charAt(0)))
-					if (findLine(cell.getCoordinates(), word))
+				// we can use it as a start point to search adjacent cells for the
+				// rest of the word
+				++cellsProbed;
+				if (c.equals(word.charAt(0)))
+					if (findLine(cell, word))
 						return true;
+				++cell;
+			}
 		}
 		return false;
 	}
@@ -122,6 +254,16 @@ public class Solver extends CoordinateSystem {
 		return failedWords;
 	}
 	
+	/**
+	 * Fetch the list of words the Solver did not look for, or did not finish looking for,
+	 * because solving was stopped early by a deadline or cancellation.
+	 * 
+	 * @return  The unattempted words
+	 */
+	public ArrayList<String> getUnattemptedWords() {
+		return unattemptedWords;
+	}
+	
 	/**
 	 * Fetch the map of words the Solver successfully found, and their mapped Lines
 	 * 
@@ -132,29 +274,41 @@ public class Solver extends CoordinateSystem {
 	}
 	
 	/**
-	 * Given a direction and word, pursues the word alone a line in the direction,
-	 * starting from given coordinates, reporting back whether the full word was
-	 * found.
+	 * Adds every word the Solver successfully found to a MatchStore, packed alongside its
+	 * position and direction.
+	 * 
+	 * @param store  The store to add the found words to
+	 */
+	public void storeFoundWords(MatchStore store) {
+		for (Map.Entry<String, Line> entry : foundWords.entrySet())
+			store.add(entry.getKey(), entry.getValue());
+	}
+	
+	/**
+	 * Given a direction and word, pursues the word along a line in the direction,
+	 * starting from a given cell, reporting back whether the full word was found.
 	 * 
-	 * @param coords  The starting coordinates
-	 * @param line    The line to pursue
-	 * @param word    The word to look for
+	 * @param start      The index of the starting cell
+	 * @param direction  The index of the direction to pursue
+	 * @param word       The word to look for
 	 * 
 	 * @return  Whether the word was found
 	 */
-	private boolean pursue(Line line, String word) {
-		// The first character of the word has already been checked, so we can
-		// call modifyCoordinates() immediately to avoid duplicating that check
-		advanceAlongLine(line);
-		for (char c : word.toCharArray()) {
-			// If the current cell matches the letter we're checking, call
-			// modifyCoordinates() to step along the line and check the next cell;
-			// if not, the word isn't here and we return false
-			if (grid.getCell(line.getPosX(), line.getPosY()).equals(c)) {
-				advanceAlongLine(line);
-			} else {
+	private boolean pursue(int start, int direction, String word) {
+		int[] next = topology.getNextTable(direction);
+		int position = start;
+		for (int i = 0; i < word.length(); ++i) {
+			// The word isn't here if the line runs off the edge of the board, or if the
+			// board wraps and the line loops back round onto its own first letter
+			if (position == Topology.NONE || (i > 0 && position == start))
 				return false;
-			}
+			
+			// If the current cell matches the letter we're checking, step along the line
+			// to check the next cell; if not, the word isn't here and we return false
+			++cellsProbed;
+			if (!grid.getCell(topology.getX(position), topology.getY(position)).equals(word.charAt(i)))
+				return false;
+			position = next[position];
 		}
 		return true;
 	}
@@ -165,9 +319,176 @@ public class Solver extends CoordinateSystem {
 	 * @param words  The words to look for
 	 */
 	public void solve(String[] words) {
-		for (String word : words) {
-			if (!findWord(word))
-				failedWords.add(word);
+		solve(words, Deadline.NONE, CancellationToken.NONE);
+	}
+	
+	/**
+	 * Given a list of words, attempts to find each of them on the board, stopping early if a
+	 * deadline passes or a cancellation token is cancelled. Any word being looked for when the
+	 * Solver stops, and every word after it, is recorded as unattempted.
+	 * 
+	 * @param words     The words to look for
+	 * @param deadline  The deadline to stop by
+	 * @param token     The token to stop on
+	 * 
+	 * @return  Whether every word was looked for
+	 */
+	public boolean solve(String[] words, Deadline deadline, CancellationToken token) {
+		PhaseEvent phase = PhaseEvent.begin("solve");
+		this.deadline = deadline;
+		this.token = token;
+		stopped = false;
+		countGiven(Arrays.asList(words));
+		
+		for (int w = 0; w < words.length; ++w) {
+			if (findWordRecorded(words[w]))
+				continue;
+			if (stopped) {
+				for (int u = w; u < words.length; ++u)
+					unattemptedWords.add(words[u]);
+				break;
+			}
+			failedWords.add(words[w]);
+		}
+		
+		// Later calls to update() should always run to completion
+		boolean finished = !stopped;
+		this.deadline = Deadline.NONE;
+		this.token = CancellationToken.NONE;
+		stopped = false;
+		phase.finish(words.length, topology.getCellCount());
+		return finished;
+	}
+	
+	/**
+	 * Determines whether the current solve should stop early, remembering the answer once
+	 * it has.
+	 * 
+	 * @return  Whether to stop
+	 */
+	private boolean shouldStop() {
+		if (!stopped && (token.isCancelled() || deadline.hasExpired()))
+			stopped = true;
+		return stopped;
+	}
+	
+	/**
+	 * Searches the board for a single word as findWord() does, reporting the search to the
+	 * flight recorder if it takes longer than the WordSearchEvent threshold.
+	 * 
+	 * @param word  The word to search for
+	 * 
+	 * @return  Whether the word was found
+	 */
+	private boolean findWordRecorded(String word) {
+		WordSearchEvent event = new WordSearchEvent();
+		event.begin();
+		long probedBefore = cellsProbed;
+		boolean found = findWord(word);
+		event.end();
+		if (event.shouldCommit()) {
+			event.word = word;
+			event.wordLength = word.length();
+			event.cellsProbed = cellsProbed - probedBefore;
+			event.found = found;
+			event.commit();
+		}
+		return found;
+	}
+	
+	/**
+	 * Attempts to find every word in a compiled WordSet on the board, searching for
+	 * all of the words at once.
+	 * 
+	 * @param words  The compiled words to look for
+	 */
+	public void solve(WordSet words) {
+		solve(words, Deadline.NONE, CancellationToken.NONE);
+	}
+	
+	/**
+	 * Attempts to find every word in a compiled WordSet on the board, stopping early if a
+	 * deadline passes or a cancellation token is cancelled.
+	 * 
+	 * @param words     The compiled words to look for
+	 * @param deadline  The deadline to stop by
+	 * @param token     The token to stop on
+	 * 
+	 * @return  Whether every word was looked for
+	 */
+	public boolean solve(WordSet words, Deadline deadline, CancellationToken token) {
+		countGiven(words.getGivenWords());
+		SolveResult result = words.solve(grid, topology, deadline, token);
+		for (WordLocation location : result.getFoundWords().values())
+			foundWords.put(location.getWord(), location.toLine());
+		failedWords.addAll(result.getFailedWords());
+		unattemptedWords.addAll(result.getUnattemptedWords());
+		return result.getUnattemptedWords().isEmpty();
+	}
+	
+	/**
+	 * Records how many times each of the given words was given.
+	 * 
+	 * @param words  The words given to solve()
+	 */
+	private void countGiven(List<String> words) {
+		for (String word : words)
+			givenCounts.merge(word, 1, Integer::sum);
+	}
+	
+	/**
+	 * Brings the found and failed words up to date after the cells at the given
+	 * coordinates have been edited, without solving the whole board again.
+	 * 
+	 * Only lines passing through the changed cells are checked. A found word is only
+	 * looked for again if its line crosses a changed cell and no longer matches, and
+	 * a failed word can only have appeared somewhere crossing a changed cell.
+	 * 
+	 * @param changedCoordinates  The coordinates of the edited cells
+	 */
+	public void update(Coordinate... changedCoordinates) {
+		int[] changed = Arrays.stream(changedCoordinates)
+				.mapToInt(coords -> topology.getCell(coords.getX(), coords.getY()))
+				.filter(cell -> cell != Topology.NONE)
+				.toArray();
+		
+		// Check every found word whose line has been edited is still intact. If not, it may
+		// still appear elsewhere on the board, so it has to be searched for again in full.
+		Iterator<Map.Entry<String, Line>> found = foundWords.entrySet().iterator();
+		ArrayList<String> brokenWords = new ArrayList<String>();
+		while (found.hasNext()) {
+			Map.Entry<String, Line> entry = found.next();
+			String word = entry.getKey();
+			Line line = entry.getValue();
+			if (crosses(line, word.length(), changed)
+					&& !matchesAt(line, word)) {
+				found.remove();
+				brokenWords.add(word);
+			}
+		}
+		
+		// Any failed word that now appears must pass through one of the changed cells. A word
+		// given more than once is listed once per time, and each listing goes once it is found.
+		Iterator<String> failed = failedWords.iterator();
+		while (failed.hasNext()) {
+			String word = failed.next();
+			if (foundWords.containsKey(word)) {
+				failed.remove();
+				continue;
+			}
+			for (int cell : changed) {
+				if (findLineThrough(cell, word)) {
+					failed.remove();
+					break;
+				}
+			}
+		}
+		
+		for (String word : brokenWords) {
+			if (!findWord(word)) {
+				for (int i = givenCounts.getOrDefault(word, 1); i > 0; --i)
+					failedWords.add(word);
+			}
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,379 @@
+/**
+ * Describes the shape of a grid and the directions words may follow across it.
+ * A Topology may be any width and height, may wrap around at its edges (making
+ * the grid a torus), and may allow any subset of the eight directions defined by
+ * CoordinateSystem, such as only the orthogonal ones for easier puzzles.
+ * 
+ * Cells are identified by a single index, counting along each row from the
+ * top-left corner. For each allowed direction, the index of the next cell along
+ * from every cell is computed once, when the Topology is created, so that moving
+ * along a line is a single table lookup, with no boundary or wrap-around checks.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public class Topology extends CoordinateSystem {
+
+	/**
+	 * The value returned in place of a cell index when a line runs off the edge of a grid
+	 * that does not wrap.
+	 */
+	public static final int NONE = -1;
+	
+	private static final int STEP_COUNT = DIRECTIONS.length * MODES.length;
+	private static final int[] STEP_X = new int[STEP_COUNT];
+	private static final int[] STEP_Y = new int[STEP_COUNT];
+	
+	static {
+		// Find the offset of each step by taking it once from the origin, so that the
+		// geometry of each direction is only ever defined in one place
+		Topology origin = new Topology(1, 1, false, new int[0]);
+		for (int step = 0; step < STEP_COUNT; ++step) {
+			Line line = new Line(new Coordinate(0, 0), getDirectionName(step), getModeName(step));
+			origin.advanceAlongLine(line);
+			STEP_X[step] = line.getPosX();
+			STEP_Y[step] = line.getPosY();
+		}
+	}
+	
+	private final int width;
+	private final int height;
+	private final boolean wrapping;
+	private final int[] steps;
+	
+	// For each allowed direction, the index of the next and previous cell along from
+	// each cell, or NONE if the line runs off the edge of the grid
+	private final int[][] next;
+	private final int[][] previous;
+	
+	public Topology(int width, int height, boolean wrapping, int[] steps) {
+		if (width < 0 || height < 0)
+			throw new IllegalArgumentException("A grid's width and height must not be negative.");
+		for (int step : steps) {
+			if (step < 0 || step >= STEP_COUNT)
+				throw new IllegalArgumentException("Unknown direction: " + step);
+		}
+		
+		this.width = width;
+		this.height = height;
+		this.wrapping = wrapping;
+		this.steps = steps.clone();
+		
+		next = new int[this.steps.length][];
+		previous = new int[this.steps.length][];
+		for (int d = 0; d < this.steps.length; ++d) {
+			next[d] = buildTable(STEP_X[this.steps[d]], STEP_Y[this.steps[d]]);
+			previous[d] = buildTable(-STEP_X[this.steps[d]], -STEP_Y[this.steps[d]]);
+		}
+	}
+	
+	/**
+	 * Create a Topology for a grid of a given size that does not wrap, allowing all eight
+	 * directions.
+	 * 
+	 * @param width   The width of the grid
+	 * @param height  The height of the grid
+	 * 
+	 * @return  The Topology
+	 */
+	public static Topology bounded(int width, int height) {
+		return new Topology(width, height, false, getDirectionSet("all"));
+	}
+	
+	/**
+	 * Create a Topology matching the size of a given Grid that does not wrap, allowing all
+	 * eight directions.
+	 * 
+	 * @param grid  The grid
+	 * 
+	 * @return  The Topology
+	 */
+	public static Topology of(Grid grid) {
+		if (!grid.isRectangular())
+			throw new IllegalArgumentException("The rows of the grid must all be the same length.");
+		return bounded(grid.getWidth(), grid.getHeight());
+	}
+	
+	/**
+	 * Fetch one of the predefined sets of directions: "all" for all eight directions,
+	 * "orthogonal" for only horizontal and vertical lines, or "forward" for only lines
+	 * read in the forward mode.
+	 * 
+	 * @param name  The name of the set
+	 * 
+	 * @return  The IDs of the directions in the set, or null if there is no such set
+	 */
+	public static int[] getDirectionSet(String name) {
+		return switch (name.toLowerCase()) {
+			case "all" -> new int[] { 0, 1, 2, 3, 4, 5, 6, 7 };
+			case "orthogonal" -> new int[] { 4, 5, 6, 7 };
+			case "forward" -> new int[] { 1, 3, 5, 7 };
+			default -> null;
+		};
+	}
+	
+	/**
+	 * Fetch the ID of the step taken by following a given direction in a given mode. IDs
+	 * follow the order of DIRECTIONS, then MODES.
+	 * 
+	 * @param direction  The direction to follow
+	 * @param mode       The mode in which to follow it
+	 * 
+	 * @return  The ID of the step, or NONE if the direction or mode is unknown
+	 */
+	public static int getStepId(String direction, String mode) {
+		for (int step = 0; step < STEP_COUNT; ++step) {
+			if (getDirectionName(step).equals(direction) && getModeName(step).equals(mode))
+				return step;
+		}
+		return NONE;
+	}
+	
+	/**
+	 * Fetch the name of the direction followed by a given step.
+	 * 
+	 * @param step  The ID of the step
+	 * 
+	 * @return  The name of the direction
+	 */
+	static String getDirectionName(int step) {
+		return DIRECTIONS[step / MODES.length];
+	}
+	
+	/**
+	 * Fetch the name of the mode in which a given step follows its direction.
+	 * 
+	 * @param step  The ID of the step
+	 * 
+	 * @return  The name of the mode
+	 */
+	static String getModeName(int step) {
+		return MODES[step % MODES.length];
+	}
+	
+	/**
+	 * Builds the table of neighbouring cells for a single step.
+	 * 
+	 * @param stepX  The change in X coordinate for the step
+	 * @param stepY  The change in Y coordinate for the step
+	 * 
+	 * @return  The table of neighbouring cells
+	 */
+	private int[] buildTable(int stepX, int stepY) {
+		int[] table = new int[width * height];
+		for (int y = 0; y < height; ++y) {
+			for (int x = 0; x < width; ++x) {
+				int nextX = x + stepX;
+				int nextY = y + stepY;
+				if (wrapping) {
+					nextX = Math.floorMod(nextX, width);
+					nextY = Math.floorMod(nextY, height);
+				}
+				table[y * width + x] = contains(nextX, nextY) ? nextY * width + nextX : NONE;
+			}
+		}
+		return table;
+	}
+	
+	/**
+	 * Determine whether a Grid has exactly the shape described by the topology, with every
+	 * row the topology's width.
+	 * 
+	 * @param grid  The grid to check
+	 * 
+	 * @return  Whether the grid fits the topology
+	 */
+	public boolean fits(Grid grid) {
+		return grid.getHeight() == height && grid.getWidth() == width && grid.isRectangular();
+	}
+	
+	/**
+	 * Check that a Grid has exactly the shape described by the topology, as fits() does,
+	 * for classes that need a Grid and Topology to agree before working on them.
+	 * 
+	 * @param grid  The grid to check
+	 * 
+	 * @throws IllegalArgumentException  If the grid does not fit the topology
+	 */
+	public void requireFits(Grid grid) {
+		if (!fits(grid))
+			throw new IllegalArgumentException("The grid must be rectangular and the same size as its topology.");
+	}
+	
+	/**
+	 * Determine if the given coordinates lie on the grid.
+	 * 
+	 * @param x  The X coordinate
+	 * @param y  The Y coordinate
+	 * 
+	 * @return  Whether the coordinates lie on the grid
+	 */
+	public boolean contains(int x, int y) {
+		return x >= 0 && x < width && y >= 0 && y < height;
+	}
+	
+	/**
+	 * Fetch the width of the grid.
+	 * 
+	 * @return  The width of the grid
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * Fetch the height of the grid.
+	 * 
+	 * @return  The height of the grid
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * Fetch the number of cells on the grid.
+	 * 
+	 * @return  The number of cells
+	 */
+	public int getCellCount() {
+		return width * height;
+	}
+	
+	/**
+	 * Determine whether lines wrap around from each edge of the grid to the opposite edge.
+	 * 
+	 * @return  Whether the grid wraps
+	 */
+	public boolean isWrapping() {
+		return wrapping;
+	}
+	
+	/**
+	 * Fetch the index of the cell at given coordinates.
+	 * 
+	 * @param x  The X coordinate of the cell
+	 * @param y  The Y coordinate of the cell
+	 * 
+	 * @return  The index of the cell, or NONE if the coordinates are not on the grid
+	 */
+	public int getCell(int x, int y) {
+		return contains(x, y) ? y * width + x : NONE;
+	}
+	
+	/**
+	 * Fetch the X coordinate of a given cell.
+	 * 
+	 * @param cell  The index of the cell
+	 * 
+	 * @return  The X coordinate of the cell
+	 */
+	public int getX(int cell) {
+		return cell % width;
+	}
+	
+	/**
+	 * Fetch the Y coordinate of a given cell.
+	 * 
+	 * @param cell  The index of the cell
+	 * 
+	 * @return  The Y coordinate of the cell
+	 */
+	public int getY(int cell) {
+		return cell / width;
+	}
+	
+	/**
+	 * Fetch the number of directions words may follow.
+	 * 
+	 * @return  The number of directions
+	 */
+	public int getDirectionCount() {
+		return steps.length;
+	}
+	
+	/**
+	 * Fetch the name of one of the allowed directions (diagonal_down, diagonal_up,
+	 * horizontal, vertical).
+	 * 
+	 * @param d  The index of the direction
+	 * 
+	 * @return  The name of the direction
+	 */
+	public String getDirection(int d) {
+		return getDirectionName(steps[d]);
+	}
+	
+	/**
+	 * Fetch the mode (backward, forward) in which one of the allowed directions is followed.
+	 * 
+	 * @param d  The index of the direction
+	 * 
+	 * @return  The mode of the direction
+	 */
+	public String getMode(int d) {
+		return getModeName(steps[d]);
+	}
+	
+	/**
+	 * Fetch the step ID of one of the allowed directions.
+	 * 
+	 * @param d  The index of the direction
+	 * 
+	 * @return  The step ID of the direction
+	 */
+	public int getStepId(int d) {
+		return steps[d];
+	}
+	
+	/**
+	 * Fetch the index of the allowed direction following a given direction and mode.
+	 * 
+	 * @param direction  The direction to follow
+	 * @param mode       The mode in which to follow it
+	 * 
+	 * @return  The index of the direction, or NONE if it is not allowed
+	 */
+	public int indexOf(String direction, String mode) {
+		int step = getStepId(direction, mode);
+		for (int d = 0; d < steps.length; ++d) {
+			if (steps[d] == step)
+				return d;
+		}
+		return NONE;
+	}
+	
+	/**
+	 * Fetch the next cell along from a given cell, in one of the allowed directions.
+	 * 
+	 * @param d     The index of the direction
+	 * @param cell  The index of the cell
+	 * 
+	 * @return  The index of the next cell, or NONE if the line runs off the grid
+	 */
+	public int next(int d, int cell) {
+		return next[d][cell];
+	}
+	
+	/**
+	 * Fetch the previous cell along from a given cell, in one of the allowed directions.
+	 * 
+	 * @param d     The index of the direction
+	 * @param cell  The index of the cell
+	 * 
+	 * @return  The index of the previous cell, or NONE if the line runs off the grid
+	 */
+	public int previous(int d, int cell) {
+		return previous[d][cell];
+	}
+	
+	/**
+	 * Fetch the whole table of next cells for one of the allowed directions, for use in
+	 * hot loops. The table must not be modified.
+	 * 
+	 * @param d  The index of the direction
+	 * 
+	 * @return  The table of next cells, indexed by cell
+	 */
+	int[] getNextTable(int d) {
+		return next[d];
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * An immutable record of where a single word lies on a grid: the coordinates of
+ * its first letter, and the direction and mode of the line it follows. Unlike a
+ * Line, a WordLocation holds no current position, and so can be shared freely
+ * between threads.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public final class WordLocation {
+	
+	private final String word;
+	private final int x;
+	private final int y;
+	private final String direction;
+	private final String mode;
+	
+	public WordLocation(String word, int x, int y, String direction, String mode) {
+		this.word = word;
+		this.x = x;
+		this.y = y;
+		this.direction = direction;
+		this.mode = mode;
+	}
+	
+	public WordLocation(String word, Line line) {
+		this(
+			word,
+			line.getStartCoordinates().getX(),
+			line.getStartCoordinates().getY(),
+			line.getDirection(),
+			line.getMode()
+		);
+	}
+	
+	/**
+	 * Fetch the word.
+	 * 
+	 * @return  The word
+	 */
+	public String getWord() {
+		return word;
+	}
+	
+	/**
+	 * Fetch the X coordinate of the word's first letter.
+	 * 
+	 * @return  The X coordinate of the first letter
+	 */
+	public int getX() {
+		return x;
+	}
+	
+	/**
+	 * Fetch the Y coordinate of the word's first letter.
+	 * 
+	 * @return  The Y coordinate of the first letter
+	 */
+	public int getY() {
+		return y;
+	}
+	
+	/**
+	 * Fetch the direction (diagonal_down, diagonal_up, horizontal, vertical) the word
+	 * follows.
+	 * 
+	 * @return  The direction of the word
+	 */
+	public String getDirection() {
+		return direction;
+	}
+	
+	/**
+	 * Fetch the mode (backward, forward) in which the word follows its direction.
+	 * 
+	 * @return  The mode of the word
+	 */
+	public String getMode() {
+		return mode;
+	}
+	
+	/**
+	 * Create a new Line starting at the word's first letter and following its direction.
+	 * 
+	 * @return  The new Line
+	 */
+	public Line toLine() {
+		return new Line(new Coordinate(x, y), direction, mode);
+	}
+	
+	/**
+	 * Returns a string representation of the WordLocation.
+	 */
+	public String toString() {
+		return String.format("%s: [ x: %d, y: %d ], [ %s, %s ]", word, x, y, direction, mode);
+	}
+}
@@ -1,8 +1,12 @@
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Random;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Main class to run the word search generation and solution program.
@@ -11,7 +15,12 @@ import java.util.Scanner;
  */
 public class WordSearch {
 	
+	private Alphabet alphabet = Alphabet.LATIN;
 	private boolean colourFoundWords = false;
+	private boolean solveStream = false;
+	private boolean wrap = false;
+	private int[] directions = Topology.getDirectionSet("all");
+	private int fuzzyDistance = 0;
 	private int wordCount = 10;
 	
 	/**
@@ -22,7 +31,11 @@ public class WordSearch {
 	public static void main(String[] args) {
 		WordSearch wordSearch = new WordSearch();
 		wordSearch.processArguments(args);
-		wordSearch.run();
+		if (wordSearch.solveStream) {
+			wordSearch.runSolveStream();
+		} else {
+			wordSearch.run();
+		}
 	}
 	
 	/**
@@ -35,13 +48,14 @@ public class WordSearch {
 	public void run() {
 		String[] words = fetchWords(wordCount);
 		
-		Board board = new Board(getMaxStringLength(words) + 5, 100);
+		int size = getMaxStringLength(words) + 5;
+		Board board = new Board(new Topology(size, size, wrap, directions), 100, alphabet, new Random());
 		initialiseBoard(board, words);
 		
 		Grid grid = board.getGrid();
 		printGrid(grid);
 		
-		Solver solver = new Solver(grid);
+		Solver solver = new Solver(grid, board.getTopology());
 		solveBoard(solver, words);
 		
 		System.out.println("\nThe solved board is:\n");
@@ -61,6 +75,44 @@ public class WordSearch {
 				)
 			);
 		}
+		
+		if (fuzzyDistance > 0)
+			printNearMisses(new FuzzySearch(new LineIndex(grid, board.getTopology())), words);
+	}
+	
+	/**
+	 * Prints every place a word appears with at least one, but no more than the allowed
+	 * number of, mismatched letters.
+	 * 
+	 * @param search  The search to use
+	 * @param words   The words to look for
+	 */
+	private void printNearMisses(FuzzySearch search, String[] words) {
+		System.out.println(
+			String.format("\nNear misses with up to %d mismatched letter(s):\n", fuzzyDistance)
+		);
+		for (FuzzyMatch match : search.find(words, fuzzyDistance)) {
+			if (match.getMismatches() > 0)
+				System.out.println(match);
+		}
+	}
+	
+	/**
+	 * Solves a stream of puzzles read from standard input, writing each solution to
+	 * standard output in turn. See SolvePipeline for the input format.
+	 */
+	public void runSolveStream() {
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			new SolvePipeline(executor, threads * 4).run(System.in, System.out);
+		} catch (IOException e) {
+			System.out.println("Failed to solve stream: " + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdown();
+		}
 	}
 	
 	/**
@@ -72,6 +124,11 @@ public class WordSearch {
 	private void initialiseBoard(Board board, String[] words) {
 		System.out.println("Generating grid...\nAdding words...");
 		board.fillWords(words);
+		for (String word : board.getFailedWords()) {
+			System.out.println(
+				String.format("Failed to add %s; timed out on too many failed attempts.", word)
+			);
+		}
 		System.out.println("Filling empty cells...");
 		board.fillRemainder();
 		
@@ -103,7 +160,7 @@ public class WordSearch {
 	}
 	
 	/**
-	 * Fetches a list of purely alphabetical words from user input.
+	 * Fetches a list of words from user input, made up purely of letters from the alphabet.
 	 * 
 	 * @param count  The number of words to fetch
 	 * 
@@ -135,6 +192,7 @@ public class WordSearch {
 	 * @param grid  The grid to print
 	 */
 	private void printGrid(Grid grid) {
+		PhaseEvent phase = PhaseEvent.begin("render");
 		for (ArrayList<Cell> row : grid) {
 			for (Cell cell : row) {
 				System.out.print(cell.toString());
@@ -142,6 +200,7 @@ public class WordSearch {
 			}
 			System.out.print('\n');
 		}
+		phase.finish(0, grid.getWidth() * grid.getHeight());
 	}
 	
 	/**
@@ -153,9 +212,38 @@ public class WordSearch {
 		for (int i = 0; i < args.length; ++i) {
 			String arg = args[i];
 			switch (arg) {
+				case "-a", "--alphabet" -> {
+					Alphabet chosen = i + 1 < args.length ? Alphabet.forName(args[i+1]) : null;
+					if (chosen != null) {
+						alphabet = chosen;
+					} else {
+						System.out.println(arg + " was provided, but not succeeded by a known alphabet. Defaulting to Latin.");
+					}
+				}
 				case "-c", "--colour" -> {
 					colourFoundWords = true;
 				}
+				case "-f", "--fuzzy" -> {
+					try {
+						fuzzyDistance = Integer.parseInt(args[i+1]);
+					} catch (NumberFormatException | IndexOutOfBoundsException e) {
+						System.out.println(arg + " was provided, but not succeeded by a number. Near misses will not be shown.");
+					}
+				}
+				case "-d", "--directions" -> {
+					int[] chosen = i + 1 < args.length ? Topology.getDirectionSet(args[i+1]) : null;
+					if (chosen != null) {
+						directions = chosen;
+					} else {
+						System.out.println(arg + " was provided, but not succeeded by all, orthogonal or forward. Defaulting to all.");
+					}
+				}
+				case "-s", "--solve-stream" -> {
+					solveStream = true;
+				}
+				case "--wrap" -> {
+					wrap = true;
+				}
 				case "-w", "--word-count" -> {
 					try {
 						wordCount = Integer.parseInt(args[i+1]);
@@ -164,7 +252,7 @@ public class WordSearch {
 					}
 				}
 				default -> {
-					if (!(args[i-1].equals("-w") || args[i-1].equals("--word-count")))
+					if (i == 0 || !isOptionWithValue(args[i-1]))
 							System.out.println("Unknown argument: " + arg);
 				}
 			}
@@ -172,7 +260,23 @@ public class WordSearch {
 	}
 	
 	/**
-	 * Receive and validate user input as an alphabetical string, and converts it to upper case.
+	 * Determine if a given command-line argument is an option that takes the following
+	 * argument as its value.
+	 * 
+	 * @param arg  The argument to check
+	 * 
+	 * @return  Whether the argument takes a value
+	 */
+	private boolean isOptionWithValue(String arg) {
+		return switch (arg) {
+			case "-a", "--alphabet", "-d", "--directions", "-f", "--fuzzy", "-w", "--word-count" -> true;
+			default -> false;
+		};
+	}
+	
+	/**
+	 * Receive and validate user input as a string of letters from the alphabet, and converts
+	 * it to upper case.
 	 * 
 	 * @param number   The number of the string to validate
 	 * @param scanner  An input scanner
@@ -183,29 +287,16 @@ public class WordSearch {
 		String word;
 		
 		System.out.print(String.format("Please enter a word number %d: ", number+1));
-		word = scanner.nextLine();
-		while (!isStringAlpha(word)) {
-			System.out.print("Please ensure the word contains only alphabetical characters: ");
-			word = scanner.nextLine();
+		// We'll convert the words to upper case to make the printed boards easier to read, and
+		// to match the upper case letters of each alphabet
+		word = scanner.nextLine().toUpperCase();
+		while (!alphabet.isWord(word)) {
+			System.out.print(
+				String.format("Please ensure the word contains only letters from the %s alphabet: ", alphabet)
+			);
+			word = scanner.nextLine().toUpperCase();
 		}
 		
-		// We'll convert the words to upper case to make the printed boards easier to read
-		return word.toUpperCase();
-	}
-	
-	/**
-	 * Determine if a given string consists entirely of alphabetical characters.
-	 * 
-	 * @param string  The string to check
-	 * 
-	 * @return  Whether the string is purely alphabetical
-	 */
-	private boolean isStringAlpha(String string) {
-		int length = string.length();
-		for (int i = 0; i < length; ++i) {
-			if (!Character.isLetter(string.charAt(i)))
-				return false;
-		}
-		return length > 0;
+		return word;
 	}
 }
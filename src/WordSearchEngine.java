@@ -0,0 +1,292 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * An embeddable entry point for generating and solving word searches from other
+ * programs. Work is run asynchronously on an Executor supplied by the caller, and
+ * results are returned as immutable Puzzle and SolveResult objects.
+ * 
+ * Each task works on its own Board, Grid and Solver, and the engine holds no
+ * mutable state of its own, so any number of puzzles may be generated and solved
+ * concurrently through one engine, or through several.
+ * 
+ * Every task may also be given a Deadline and a CancellationToken. A task that runs
+ * out of time or is cancelled stops early and completes normally with a partial
+ * result, listing the words it never attempted, so callers can degrade gracefully
+ * rather than waiting indefinitely on an awkward board or a huge word list. Since a
+ * deadline is fixed when it is created, time spent queued on the Executor counts
+ * against it.
+ * 
+ * Arguments are checked before any work is submitted. Every method throws an
+ * IllegalArgumentException straight away for empty words, words outside of the
+ * engine's alphabet when generating, and grids whose rows differ in length, rather
+ * than returning a future that fails.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public final class WordSearchEngine {
+	
+	/**
+	 * The number of cells added to the length of the longest word to determine the
+	 * size of a board, when no size is given.
+	 */
+	public static final int DEFAULT_PADDING = 5;
+	public static final int DEFAULT_TIMEOUT = 100;
+	
+	private final Executor executor;
+	private final Alphabet alphabet;
+	
+	public WordSearchEngine(Executor executor) {
+		this(executor, Alphabet.LATIN);
+	}
+	
+	public WordSearchEngine(Executor executor, Alphabet alphabet) {
+		this.executor = executor;
+		this.alphabet = alphabet;
+	}
+	
+	/**
+	 * Generate a puzzle from the given words, on a board sized to fit the longest word.
+	 * 
+	 * @param words  The words to add
+	 * 
+	 * @return  A future completing with the generated Puzzle
+	 */
+	public CompletableFuture<Puzzle> generate(String[] words) {
+		int longest = Arrays.stream(words).mapToInt(String::length).max().orElse(0);
+		return generate(words, longest + DEFAULT_PADDING, DEFAULT_TIMEOUT);
+	}
+	
+	/**
+	 * Generate a puzzle from the given words, on a board of a given size.
+	 * 
+	 * @param words    The words to add
+	 * @param size     The width and height of the board
+	 * @param timeout  The number of attempts to make at placing each word
+	 * 
+	 * @return  A future completing with the generated Puzzle
+	 */
+	public CompletableFuture<Puzzle> generate(String[] words, int size, int timeout) {
+		return generate(words, Topology.bounded(size, size), timeout);
+	}
+	
+	/**
+	 * Generate a puzzle from the given words, on a board of any shape and with any set
+	 * of directions.
+	 * 
+	 * @param words     The words to add
+	 * @param topology  The topology of the board
+	 * @param timeout   The number of attempts to make at placing each word
+	 * 
+	 * @return  A future completing with the generated Puzzle
+	 */
+	public CompletableFuture<Puzzle> generate(String[] words, Topology topology, int timeout) {
+		return generate(words, topology, timeout, Deadline.NONE, CancellationToken.NONE);
+	}
+	
+	/**
+	 * Generate a puzzle from the given words, on a board of any shape and with any set
+	 * of directions, placing as many words as possible before a deadline passes or a
+	 * cancellation token is cancelled. The rest of the grid is filled in either way.
+	 * 
+	 * @param words     The words to add
+	 * @param topology  The topology of the board
+	 * @param timeout   The number of attempts to make at placing each word
+	 * @param deadline  The deadline to stop placing words by
+	 * @param token     The token to stop placing words on
+	 * 
+	 * @return  A future completing with the generated, possibly partial, Puzzle
+	 */
+	public CompletableFuture<Puzzle> generate(String[] words, Topology topology, int timeout,
+			Deadline deadline, CancellationToken token) {
+		String[] copy = validate(words);
+		return CompletableFuture.supplyAsync(() -> {
+			Board board = new Board(topology, timeout, alphabet, new Random());
+			board.fillWords(copy, deadline, token);
+			board.fillRemainder();
+			return new Puzzle(
+				board.getGrid().toRows(), copy, board.getPlacedWords(), board.getFailedWords(),
+				board.getUnattemptedWords(), topology
+			);
+		}, executor);
+	}
+	
+	/**
+	 * Solve a previously generated puzzle, looking for the words it was generated from.
+	 * 
+	 * @param puzzle  The puzzle to solve
+	 * 
+	 * @return  A future completing with the SolveResult
+	 */
+	public CompletableFuture<SolveResult> solve(Puzzle puzzle) {
+		return solve(puzzle, puzzle.getWords().toArray(new String[0]));
+	}
+	
+	/**
+	 * Solve a previously generated puzzle, looking for a given list of words.
+	 * 
+	 * @param puzzle  The puzzle to solve
+	 * @param words   The words to look for
+	 * 
+	 * @return  A future completing with the SolveResult
+	 */
+	public CompletableFuture<SolveResult> solve(Puzzle puzzle, String[] words) {
+		return solve(puzzle, words, Deadline.NONE, CancellationToken.NONE);
+	}
+	
+	/**
+	 * Solve a previously generated puzzle, looking for a given list of words until a
+	 * deadline passes or a cancellation token is cancelled.
+	 * 
+	 * @param puzzle    The puzzle to solve
+	 * @param words     The words to look for
+	 * @param deadline  The deadline to stop by
+	 * @param token     The token to stop on
+	 * 
+	 * @return  A future completing with the, possibly partial, SolveResult
+	 */
+	public CompletableFuture<SolveResult> solve(Puzzle puzzle, String[] words, Deadline deadline,
+			CancellationToken token) {
+		String[] copy = checkWords(words);
+		return CompletableFuture.supplyAsync(
+			() -> solveGrid(puzzle.toGrid(), puzzle.getTopology(), copy, deadline, token), executor
+		);
+	}
+	
+	/**
+	 * Solve a grid given as rows of letters, looking for a given list of words.
+	 * 
+	 * @param rows   The rows of the grid
+	 * @param words  The words to look for
+	 * 
+	 * @return  A future completing with the SolveResult
+	 */
+	public CompletableFuture<SolveResult> solve(String[] rows, String[] words) {
+		return solve(rows, words, Deadline.NONE, CancellationToken.NONE);
+	}
+	
+	/**
+	 * Solve a grid given as rows of letters, looking for a given list of words until a
+	 * deadline passes or a cancellation token is cancelled.
+	 * 
+	 * @param rows      The rows of the grid
+	 * @param words     The words to look for
+	 * @param deadline  The deadline to stop by
+	 * @param token     The token to stop on
+	 * 
+	 * @return  A future completing with the, possibly partial, SolveResult
+	 */
+	public CompletableFuture<SolveResult> solve(String[] rows, String[] words, Deadline deadline,
+			CancellationToken token) {
+		String[] rowsCopy = checkRows(rows);
+		String[] wordsCopy = checkWords(words);
+		return CompletableFuture.supplyAsync(() -> {
+			Grid grid = Grid.fromRows(rowsCopy);
+			return solveGrid(grid, Topology.of(grid), wordsCopy, deadline, token);
+		}, executor);
+	}
+	
+	/**
+	 * Solve a grid given as rows of letters, looking for every word in a compiled WordSet.
+	 * The same WordSet may be used to solve any number of grids at once.
+	 * 
+	 * @param rows   The rows of the grid
+	 * @param words  The compiled words to look for
+	 * 
+	 * @return  A future completing with the SolveResult
+	 */
+	public CompletableFuture<SolveResult> solve(String[] rows, WordSet words) {
+		return solve(rows, words, Deadline.NONE, CancellationToken.NONE);
+	}
+	
+	/**
+	 * Solve a grid given as rows of letters, looking for every word in a compiled WordSet
+	 * until a deadline passes or a cancellation token is cancelled.
+	 * 
+	 * @param rows      The rows of the grid
+	 * @param words     The compiled words to look for
+	 * @param deadline  The deadline to stop by
+	 * @param token     The token to stop on
+	 * 
+	 * @return  A future completing with the, possibly partial, SolveResult
+	 */
+	public CompletableFuture<SolveResult> solve(String[] rows, WordSet words, Deadline deadline,
+			CancellationToken token) {
+		String[] rowsCopy = checkRows(rows);
+		return CompletableFuture.supplyAsync(() -> {
+			Grid grid = Grid.fromRows(rowsCopy);
+			return words.solve(grid, Topology.of(grid), deadline, token);
+		}, executor);
+	}
+	
+	/**
+	 * Solve a grid owned by the calling task.
+	 * 
+	 * @param grid      The grid to solve
+	 * @param topology  The topology of the grid
+	 * @param words     The words to look for
+	 * @param deadline  The deadline to stop by
+	 * @param token     The token to stop on
+	 * 
+	 * @return  The SolveResult
+	 */
+	private SolveResult solveGrid(Grid grid, Topology topology, String[] words, Deadline deadline,
+			CancellationToken token) {
+		Solver solver = new Solver(grid, topology);
+		solver.solve(words, deadline, token);
+		return SolveResult.of(solver);
+	}
+	
+	/**
+	 * Copy a list of words, checking each is made up only of letters from the engine's
+	 * alphabet.
+	 * 
+	 * @param words  The words to check
+	 * 
+	 * @return  A copy of the words
+	 */
+	private String[] validate(String[] words) {
+		String[] copy = checkWords(words);
+		for (String word : copy) {
+			if (!alphabet.isWord(word))
+				throw new IllegalArgumentException(
+					String.format("\"%s\" contains letters outside of the %s alphabet.", word, alphabet)
+				);
+		}
+		return copy;
+	}
+	
+	/**
+	 * Copy a list of words to look for, checking none of them are empty.
+	 * 
+	 * @param words  The words to check
+	 * 
+	 * @return  A copy of the words
+	 */
+	private String[] checkWords(String[] words) {
+		String[] copy = words.clone();
+		for (String word : copy) {
+			if (word.isEmpty())
+				throw new IllegalArgumentException("Words must not be empty.");
+		}
+		return copy;
+	}
+	
+	/**
+	 * Copy the rows of a grid, checking they are all the same length.
+	 * 
+	 * @param rows  The rows to check
+	 * 
+	 * @return  A copy of the rows
+	 */
+	private String[] checkRows(String[] rows) {
+		String[] copy = rows.clone();
+		for (String row : copy) {
+			if (row.length() != copy[0].length())
+				throw new IllegalArgumentException("The rows of the grid must all be the same length.");
+		}
+		return copy;
+	}
+}
@@ -0,0 +1,34 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A JDK Flight Recorder event for an unusually expensive search for a single word
+ * by a Solver. Only searches taking longer than the threshold, one millisecond by
+ * default, are recorded; the threshold can be changed in the recording settings.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+@Name("wordsearch.WordSearch")
+@Label("Expensive Word Search")
+@Category("Word Search")
+@Description("A search for a single word that took longer than the threshold")
+@Threshold("1 ms")
+final class WordSearchEvent extends Event {
+
+	@Label("Word")
+	String word;
+	
+	@Label("Word Length")
+	int wordLength;
+	
+	@Label("Cells Probed")
+	@Description("The number of cells read while searching for the word")
+	long cellsProbed;
+	
+	@Label("Found")
+	boolean found;
+}
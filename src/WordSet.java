@@ -0,0 +1,452 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A list of words compiled once into a form that can be searched for on any number
+ * of grids. Compiling builds a trie of the words over dense codes numbering the
+ * letters they hold, buckets the words by length, and counts the letters each word
+ * needs, so none of that work is repeated for each grid. Words may be written in any
+ * script, and may hold any number of distinct letters between them.
+ * 
+ * Solving walks the trie along every line out of every cell, looking for all of
+ * the words at once, rather than scanning the grid once per word. Words whose
+ * letters do not all appear on a grid often enough are ruled out before the grid
+ * is scanned, and the scan stops as soon as every other word has been found. The
+ * results are the same as those of Solver: for each word, the first occurrence
+ * found starting from the top-left, trying directions in their usual order. A word
+ * given more than once is only searched for once, but like Solver, it is listed as
+ * failed once for each time it was given.
+ * 
+ * A WordSet is never modified after it is compiled, so it may be shared freely
+ * between threads and used to solve many grids concurrently.
+ * 
+ * @author Murdo B. Maclachlan
+ */
+public final class WordSet {
+
+	private static final int ROOT = 0;
+	
+	// The number of starting cells searched between checks of the deadline and cancellation token
+	private static final int STOP_CHECK_INTERVAL = 64;
+	
+	private final String[] words;
+	private final int[] givenIds;
+	private final int minLength;
+	private final int maxLength;
+	
+	// The letter each code stands for, and the code of each letter
+	private final char[] symbols;
+	private final HashMap<Character, Integer> symbolCodes;
+	
+	// The trie, stored either as one row of child nodes per node, indexed by letter code, or
+	// as a hash table from node and letter code to child node, keyed with -1 for empty slots.
+	// Since the root is never anyone's child, a child of ROOT means there is no such child.
+	private final int[] children;
+	private final long[] childKeys;
+	private final int[] childNodes;
+	private final int[] wordAtNode;
+	
+	// The IDs of the words of each length, and the codes of each word's letters, sorted so
+	// that repeated letters sit together
+	private final int[][] lengthBuckets;
+	private final int[][] sortedCodes;
+	private final int[] letterCounts;
+	
+	public WordSet(String[] words) {
+		LinkedHashSet<String> unique = new LinkedHashSet<String>();
+		HashMap<Character, Integer> codes = new HashMap<Character, Integer>();
+		StringBuilder letters = new StringBuilder();
+		for (String word : words) {
+			if (word.isEmpty())
+				throw new IllegalArgumentException("Words must not be empty.");
+			unique.add(word);
+			for (char c : word.toCharArray()) {
+				if (codes.putIfAbsent(c, letters.length()) == null)
+					letters.append(c);
+			}
+		}
+		this.words = unique.toArray(new String[unique.size()]);
+		symbols = letters.toString().toCharArray();
+		symbolCodes = codes;
+		
+		// Remember the ID of each word as given, duplicates included, so that results can
+		// list each word as many times as Solver would
+		HashMap<String, Integer> ids = new HashMap<String, Integer>();
+		for (int w = 0; w < this.words.length; ++w)
+			ids.put(this.words[w], w);
+		givenIds = new int[words.length];
+		for (int i = 0; i < words.length; ++i)
+			givenIds[i] = ids.get(words[i]);
+		
+		int min = Integer.MAX_VALUE;
+		int max = 0;
+		for (String word : this.words) {
+			min = Math.min(min, word.length());
+			max = Math.max(max, word.length());
+		}
+		minLength = this.words.length > 0 ? min : 0;
+		maxLength = max;
+		
+		// Build the trie as a map from each node and letter code to the child node, growing
+		// the table of word ends as nodes are added
+		int size = symbols.length;
+		HashMap<Long, Integer> edges = new HashMap<Long, Integer>();
+		int[] ends = new int[16];
+		Arrays.fill(ends, -1);
+		int nodeCount = 1;
+		for (int w = 0; w < this.words.length; ++w) {
+			int node = ROOT;
+			for (char c : this.words[w].toCharArray()) {
+				long key = (long)node * size + getCode(c);
+				Integer child = edges.get(key);
+				if (child == null) {
+					if (nodeCount == ends.length) {
+						ends = Arrays.copyOf(ends, ends.length * 2);
+						Arrays.fill(ends, nodeCount, ends.length, -1);
+					}
+					child = nodeCount++;
+					edges.put(key, child);
+				}
+				node = child;
+			}
+			ends[node] = w;
+		}
+		wordAtNode = Arrays.copyOf(ends, nodeCount);
+		
+		// Few enough letters to fit an Alphabet also keep a whole row per node small, so are
+		// looked up directly; any more, and the table is hashed to keep its size in check
+		if (size <= Alphabet.MAX_SIZE) {
+			children = new int[nodeCount * size];
+			childKeys = null;
+			childNodes = null;
+			for (Map.Entry<Long, Integer> edge : edges.entrySet())
+				children[(int)(long)edge.getKey()] = edge.getValue();
+		} else {
+			children = null;
+			childKeys = new long[Integer.highestOneBit(edges.size() * 2 - 1) << 1];
+			childNodes = new int[childKeys.length];
+			Arrays.fill(childKeys, -1);
+			int mask = childKeys.length - 1;
+			for (Map.Entry<Long, Integer> edge : edges.entrySet()) {
+				int slot = hashSlot(edge.getKey(), mask);
+				while (childKeys[slot] != -1)
+					slot = (slot + 1) & mask;
+				childKeys[slot] = edge.getKey();
+				childNodes[slot] = edge.getValue();
+			}
+		}
+		
+		// Bucket words by length, and gather their letter statistics
+		int[] bucketSizes = new int[maxLength + 1];
+		for (String word : this.words)
+			++bucketSizes[word.length()];
+		lengthBuckets = new int[maxLength + 1][];
+		for (int length = 0; length <= maxLength; ++length)
+			lengthBuckets[length] = new int[bucketSizes[length]];
+		Arrays.fill(bucketSizes, 0);
+		
+		sortedCodes = new int[this.words.length][];
+		letterCounts = new int[size];
+		for (int w = 0; w < this.words.length; ++w) {
+			int length = this.words[w].length();
+			lengthBuckets[length][bucketSizes[length]++] = w;
+			sortedCodes[w] = this.words[w].chars().map(this::getCode).sorted().toArray();
+			for (int code : sortedCodes[w])
+				++letterCounts[code];
+		}
+	}
+	
+	/**
+	 * Fetch the letter code of a character.
+	 * 
+	 * @param c  The character
+	 * 
+	 * @return  The code of the character, or -1 if it is in none of the words
+	 */
+	private int getCode(int c) {
+		Integer code = symbolCodes.get((char)c);
+		return code == null ? -1 : code;
+	}
+	
+	/**
+	 * Fetch the child of a node in the trie along a given letter.
+	 * 
+	 * @param node  The node
+	 * @param code  The code of the letter
+	 * 
+	 * @return  The child node, or ROOT if there is none
+	 */
+	private int child(int node, int code) {
+		if (children != null)
+			return children[node * symbols.length + code];
+		return hashedChild(node, code);
+	}
+	
+	/**
+	 * Fetch the child of a node in the hashed trie table along a given letter.
+	 * 
+	 * @param node  The node
+	 * @param code  The code of the letter
+	 * 
+	 * @return  The child node, or ROOT if there is none
+	 */
+	private int hashedChild(int node, int code) {
+		long key = (long)node * symbols.length + code;
+		int mask = childKeys.length - 1;
+		for (int slot = hashSlot(key, mask); childKeys[slot] != -1; slot = (slot + 1) & mask) {
+			if (childKeys[slot] == key)
+				return childNodes[slot];
+		}
+		return ROOT;
+	}
+	
+	/**
+	 * Fetch the slot a key of the hashed trie table is first looked for in.
+	 * 
+	 * @param key   The key, made from a node and a letter code
+	 * @param mask  One less than the size of the table
+	 * 
+	 * @return  The slot
+	 */
+	private static int hashSlot(long key, int mask) {
+		return Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+	}
+	
+	/**
+	 * Fetch the words in the set exactly as they were given, including any duplicates.
+	 * 
+	 * @return  The words as given
+	 */
+	List<String> getGivenWords() {
+		ArrayList<String> given = new ArrayList<String>(givenIds.length);
+		for (int w : givenIds)
+			given.add(words[w]);
+		return given;
+	}
+	
+	/**
+	 * Fetch the number of distinct words in the set.
+	 * 
+	 * @return  The number of words
+	 */
+	public int size() {
+		return words.length;
+	}
+	
+	/**
+	 * Fetch the length of the shortest word in the set.
+	 * 
+	 * @return  The length of the shortest word, or 0 if the set is empty
+	 */
+	public int getMinLength() {
+		return minLength;
+	}
+	
+	/**
+	 * Fetch the length of the longest word in the set.
+	 * 
+	 * @return  The length of the longest word, or 0 if the set is empty
+	 */
+	public int getMaxLength() {
+		return maxLength;
+	}
+	
+	/**
+	 * Fetch the words in the set of a given length.
+	 * 
+	 * @param length  The length of the words
+	 * 
+	 * @return  The words of that length
+	 */
+	public List<String> getWordsOfLength(int length) {
+		ArrayList<String> bucket = new ArrayList<String>();
+		if (length >= 0 && length <= maxLength) {
+			for (int w : lengthBuckets[length])
+				bucket.add(words[w]);
+		}
+		return bucket;
+	}
+	
+	/**
+	 * Fetch the number of times a letter appears across all of the words in the set.
+	 * 
+	 * @param letter  The letter to count
+	 * 
+	 * @return  The number of times the letter appears
+	 */
+	public int getLetterCount(char letter) {
+		int code = getCode(letter);
+		return code < 0 ? 0 : letterCounts[code];
+	}
+	
+	/**
+	 * Searches a grid for every word in the set, treating the grid as bounded and allowing
+	 * all eight directions.
+	 * 
+	 * @param grid  The grid to search
+	 * 
+	 * @return  The words found and not found
+	 */
+	public SolveResult solve(Grid grid) {
+		return solve(grid, Topology.of(grid));
+	}
+	
+	/**
+	 * Searches a grid for every word in the set.
+	 * 
+	 * @param grid      The grid to search
+	 * @param topology  The topology of the grid
+	 * 
+	 * @return  The words found and not found
+	 */
+	public SolveResult solve(Grid grid, Topology topology) {
+		return solve(grid, topology, Deadline.NONE, CancellationToken.NONE);
+	}
+	
+	/**
+	 * Searches a grid for every word in the set, stopping early if a deadline passes or a
+	 * cancellation token is cancelled. Words that could have been on the grid but had not
+	 * been found by then are reported as unattempted.
+	 * 
+	 * @param grid      The grid to search
+	 * @param topology  The topology of the grid
+	 * @param deadline  The deadline to stop by
+	 * @param token     The token to stop on
+	 * 
+	 * @return  The words found, not found and not attempted
+	 */
+	public SolveResult solve(Grid grid, Topology topology, Deadline deadline, CancellationToken token) {
+		topology.requireFits(grid);
+		
+		PhaseEvent phase = PhaseEvent.begin("solve");
+		int cellCount = topology.getCellCount();
+		int[] foundAt = new int[words.length];
+		int[] foundDirection = new int[words.length];
+		boolean[] possible = new boolean[words.length];
+		boolean finished = true;
+		Arrays.fill(foundAt, Topology.NONE);
+		
+		if (symbols.length > 0) {
+			// Encode the grid in the set's letter codes, counting how often each letter appears
+			int[] codes = new int[cellCount];
+			int[] gridCounts = new int[symbols.length];
+			for (int cell = 0; cell < cellCount; ++cell) {
+				codes[cell] = getCode(grid.getCell(topology.getX(cell), topology.getY(cell)).getCharacter());
+				if (codes[cell] >= 0)
+					++gridCounts[codes[cell]];
+			}
+			
+			int remaining = 0;
+			for (int w = 0; w < words.length; ++w) {
+				possible[w] = hasLetters(w, gridCounts);
+				if (possible[w])
+					++remaining;
+			}
+			if (remaining > 0)
+				finished = search(topology, codes, foundAt, foundDirection, remaining, deadline, token);
+		}
+		
+		LinkedHashMap<String, Line> found = new LinkedHashMap<String, Line>();
+		ArrayList<String> failed = new ArrayList<String>();
+		ArrayList<String> unattempted = new ArrayList<String>();
+		for (int w : givenIds) {
+			if (foundAt[w] == Topology.NONE) {
+				// A word that could have been on the grid might have been found had the search
+				// not been stopped
+				if (possible[w] && !finished)
+					unattempted.add(words[w]);
+				else
+					failed.add(words[w]);
+			} else {
+				found.put(words[w], new Line(
+					new Coordinate(topology.getX(foundAt[w]), topology.getY(foundAt[w])),
+					topology.getDirection(foundDirection[w]),
+					topology.getMode(foundDirection[w])
+				));
+			}
+		}
+		phase.finish(words.length, cellCount);
+		return new SolveResult(found, failed, unattempted);
+	}
+	
+	/**
+	 * Walks the trie along every line out of every cell, recording the first place each
+	 * word is found, until every word that could be on the grid has been found.
+	 * 
+	 * @param topology        The topology of the grid
+	 * @param codes           The letter code of each cell, or -1 for letters in no word
+	 * @param foundAt         The cell each word was first found at, filled in as found
+	 * @param foundDirection  The direction each word was first found in, filled in as found
+	 * @param remaining       The number of words that could still be found
+	 * @param deadline        The deadline to stop by
+	 * @param token           The token to stop on
+	 * 
+	 * @return  Whether the search finished without being stopped
+	 */
+	private boolean search(Topology topology, int[] codes, int[] foundAt, int[] foundDirection, int remaining,
+			Deadline deadline, CancellationToken token) {
+		int directionCount = topology.getDirectionCount();
+		int[] table = children;
+		int size = symbols.length;
+		
+		for (int start = 0; start < codes.length; ++start) {
+			if (start % STOP_CHECK_INTERVAL == 0 && (token.isCancelled() || deadline.hasExpired()))
+				return false;
+			if (codes[start] < 0 || child(ROOT, codes[start]) == ROOT) continue;
+			
+			for (int d = 0; d < directionCount; ++d) {
+				int[] next = topology.getNextTable(d);
+				int node = ROOT;
+				int position = start;
+				for (int depth = 0; depth < maxLength; ++depth) {
+					// Stop at the edge of the grid, on letters in no word, where no word carries
+					// on, or where the line wraps back round onto its own start
+					if (position == Topology.NONE || (depth > 0 && position == start) || codes[position] < 0)
+						break;
+					node = table != null ? table[node * size + codes[position]] : hashedChild(node, codes[position]);
+					if (node == ROOT)
+						break;
+					
+					int w = wordAtNode[node];
+					if (w >= 0 && foundAt[w] == Topology.NONE) {
+						foundAt[w] = start;
+						foundDirection[w] = d;
+						if (--remaining == 0)
+							return true;
+					}
+					position = next[position];
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Determines whether a grid holds enough of each letter of a word for the word to
+	 * possibly appear on it.
+	 * 
+	 * @param w           The ID of the word
+	 * @param gridCounts  The number of times each letter code appears on the grid
+	 * 
+	 * @return  Whether the word could appear on the grid
+	 */
+	private boolean hasLetters(int w, int[] gridCounts) {
+		int[] letters = sortedCodes[w];
+		for (int i = 0; i < letters.length;) {
+			int code = letters[i];
+			int needed = 0;
+			while (i < letters.length && letters[i] == code) {
+				++needed;
+				++i;
+			}
+			if (gridCounts[code] < needed)
+				return false;
+		}
+		return true;
+	}
+}